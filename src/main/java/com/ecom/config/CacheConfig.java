@@ -0,0 +1,38 @@
+package com.ecom.config;
+
+import com.github.benmanes.caffeine.cache.CaffeineSpec;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The Caffeine caches configured by {@code spring.cache.*}, made transaction
+ * aware: puts and evictions issued inside a transaction, through the cache
+ * annotations or the {@link CacheManager} directly, are applied once it
+ * commits and dropped if it rolls back. Evicting before the commit would let
+ * a concurrent read cache the pre-commit row again until the entry expires.
+ * Each cache is also a {@link WriteGenerationCache}, so a read that loaded
+ * before a commit can't put its value back after that commit's eviction.
+ */
+@Configuration
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfig {
+
+    @Bean
+    public CacheManager cacheManager(CacheProperties cacheProperties) {
+        CaffeineCacheManager caffeine = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return new WriteGenerationCache(super.adaptCaffeineCache(name, cache));
+            }
+        };
+        caffeine.setCaffeineSpec(CaffeineSpec.parse(cacheProperties.getCaffeine().getSpec()));
+        caffeine.setCacheNames(cacheProperties.getCacheNames());
+        return new TransactionAwareCacheManagerProxy(caffeine);
+    }
+}
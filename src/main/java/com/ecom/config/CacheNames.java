@@ -0,0 +1,19 @@
+package com.ecom.config;
+
+/**
+ * Names of the caches declared in {@code spring.cache.cache-names}.
+ */
+public final class CacheNames {
+
+    /** Mapped {@code ProductResponse} objects keyed by slug. */
+    public static final String PRODUCTS = "products";
+
+    /** Serialized catalog GET responses keyed by {@code product:<slug>} or {@code categories}. */
+    public static final String CATALOG_RESPONSES = "catalogResponses";
+
+    /** Mapped {@code CartResponse} objects keyed by user id. */
+    public static final String CARTS = "carts";
+
+    private CacheNames() {
+    }
+}
@@ -0,0 +1,132 @@
+package com.ecom.config;
+
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A cache whose read-through loads can't outlive a write that raced them.
+ * A miss records the key's write generation on the reading thread, and the
+ * put that follows it (what {@code @Cacheable} and other read-through
+ * callers do) keeps its value only if no eviction or write of the key
+ * happened in between; otherwise the value may predate that write and is
+ * dropped. Any other put, eviction or clear is a write and moves the
+ * generation on. Generations are striped by key hash, so an unrelated write
+ * occasionally drops a load as well, which only costs a later miss.
+ */
+final class WriteGenerationCache implements Cache {
+
+    private static final int STRIPES = 1024;
+
+    private final Cache target;
+    private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+    // The thread's last miss in this cache, consumed by its next put
+    private final ThreadLocal<Miss> lastMiss = new ThreadLocal<>();
+
+    WriteGenerationCache(Cache target) {
+        this.target = target;
+    }
+
+    @Override
+    public String getName() {
+        return target.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return target.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper value = target.get(key);
+        recordLookup(key, value == null);
+        return value;
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        T value = target.get(key, type);
+        recordLookup(key, value == null);
+        return value;
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        // Loaded under the cache's own lock on the key, so an eviction waits for it and then removes it
+        return target.get(key, valueLoader);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        Miss miss = lastMiss.get();
+        lastMiss.remove();
+        if (miss == null || !miss.key().equals(key)) {
+            written(key);
+            target.put(key, value);
+            return;
+        }
+        target.put(key, value);
+        // Checked after the put: a write moving the generation later also evicts after it
+        if (generations.get(stripe(key)) != miss.generation()) {
+            target.evict(key);
+        }
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        written(key);
+        return target.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        written(key);
+        target.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        written(key);
+        return target.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        writtenAll();
+        target.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        writtenAll();
+        return target.invalidate();
+    }
+
+    private void recordLookup(Object key, boolean missed) {
+        if (missed) {
+            lastMiss.set(new Miss(key, generations.get(stripe(key))));
+        } else {
+            lastMiss.remove();
+        }
+    }
+
+    private void written(Object key) {
+        generations.incrementAndGet(stripe(key));
+    }
+
+    private void writtenAll() {
+        for (int i = 0; i < STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+    }
+
+    private static int stripe(Object key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    private record Miss(Object key, long generation) {
+    }
+}
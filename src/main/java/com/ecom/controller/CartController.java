@@ -1,20 +1,25 @@
 package com.ecom.controller;
 
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.ecom.dto.ApiResponse;
+import com.ecom.dto.CartBatchRequest;
 import com.ecom.dto.CartItemRequest;
 import com.ecom.dto.CartResponse;
+import com.ecom.dto.CartSummaryResponse;
+import com.ecom.dto.GuestCartResponse;
 import com.ecom.security.CurrentUser;
 import com.ecom.security.UserPrincipal;
 import com.ecom.service.CartService;
+import com.ecom.service.GuestCartService;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -24,7 +29,10 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class CartController {
 
+    private static final String CART_TOKEN_HEADER = "X-Cart-Token";
+
     private final CartService cartService;
+    private final GuestCartService guestCartService;
 
    @PostMapping("/add")
 public ResponseEntity<ApiResponse<CartResponse>> addToCart(
@@ -37,13 +45,61 @@ public ResponseEntity<ApiResponse<CartResponse>> addToCart(
 }
 
 
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<CartResponse>> applyBatch(
+            @CurrentUser UserPrincipal principal,
+            @Valid @RequestBody CartBatchRequest request
+    ) {
+        CartResponse response = cartService.applyBatch(principal.getId(), request.getOperations());
+        return ResponseEntity.ok(ApiResponse.success("Cart updated", response));
+    }
+
     @GetMapping
     public ResponseEntity<ApiResponse<CartResponse>> getCart(
-            @AuthenticationPrincipal UserDetails userDetails
+            @CurrentUser UserPrincipal principal
     ) {
-        Long userId = Long.parseLong(userDetails.getUsername());
-        CartResponse response = cartService.getCart(userId);
+        CartResponse response = cartService.getCart(principal.getId());
         return ResponseEntity.ok(ApiResponse.success(response));
     }
-}
 
+    @GetMapping("/summary")
+    public ResponseEntity<ApiResponse<CartSummaryResponse>> getCartSummary(
+            @CurrentUser UserPrincipal principal
+    ) {
+        return ResponseEntity.ok(ApiResponse.success(cartService.getCartSummary(principal.getId())));
+    }
+
+    @PostMapping("/merge")
+    public ResponseEntity<ApiResponse<CartResponse>> mergeGuestCart(
+            @CurrentUser UserPrincipal principal,
+            @RequestHeader(CART_TOKEN_HEADER) String token
+    ) {
+        CartResponse response = guestCartService.mergeIntoUserCart(token, principal.getId());
+        return ResponseEntity.ok(ApiResponse.success("Guest cart merged", response));
+    }
+
+    @PostMapping("/guest/add")
+    public ResponseEntity<ApiResponse<GuestCartResponse>> addToGuestCart(
+            @RequestHeader(value = CART_TOKEN_HEADER, required = false) String token,
+            @Valid @RequestBody CartItemRequest request
+    ) {
+        GuestCartResponse response = guestCartService.addItem(token, request);
+        return ResponseEntity.ok(ApiResponse.success("Item added to cart", response));
+    }
+
+    @DeleteMapping("/guest/items/{productId}")
+    public ResponseEntity<ApiResponse<GuestCartResponse>> removeFromGuestCart(
+            @RequestHeader(CART_TOKEN_HEADER) String token,
+            @PathVariable Long productId
+    ) {
+        GuestCartResponse response = guestCartService.removeItem(token, productId);
+        return ResponseEntity.ok(ApiResponse.success("Item removed from cart", response));
+    }
+
+    @GetMapping("/guest")
+    public ResponseEntity<ApiResponse<GuestCartResponse>> getGuestCart(
+            @RequestHeader(CART_TOKEN_HEADER) String token
+    ) {
+        return ResponseEntity.ok(ApiResponse.success(guestCartService.getCart(token)));
+    }
+}
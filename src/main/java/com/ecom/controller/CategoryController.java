@@ -11,7 +11,6 @@ import org.springframework.http.*;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 
 @RestController
 @RequestMapping("/api/categories")
@@ -19,6 +18,7 @@ import java.util.List;
 public class CategoryController {
 
     private final CategoryService categoryService;
+    private final SerializedResponseCache responseCache;
 
     @PreAuthorize("hasAnyRole('ADMIN','STAFF')")
     @PostMapping
@@ -31,8 +31,18 @@ public class CategoryController {
     }
 
     @GetMapping
-    public ResponseEntity<ApiResponse<List<CategoryResponse>>> getCategories() {
-        List<CategoryResponse> responses = categoryService.getAllCategories();
-        return ResponseEntity.ok(ApiResponse.success(responses));
+    public ResponseEntity<byte[]> getCategories(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        return responseCache.respond("categories", acceptEncoding,
+                () -> ApiResponse.success(categoryService.getAllCategories()));
+    }
+
+    @GetMapping("/tree")
+    public ResponseEntity<byte[]> getCategoryTree(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        return responseCache.respond("categories:tree", acceptEncoding,
+                () -> ApiResponse.success(categoryService.getCategoryTree()));
     }
 }
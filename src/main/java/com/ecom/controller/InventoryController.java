@@ -0,0 +1,64 @@
+package com.ecom.controller;
+
+import com.ecom.dto.ApiResponse;
+import com.ecom.dto.InventoryHoldRequest;
+import com.ecom.dto.InventoryHoldResponse;
+import com.ecom.dto.InventoryLedgerResponse;
+import com.ecom.exception.BadRequestException;
+import com.ecom.security.CurrentUser;
+import com.ecom.security.UserPrincipal;
+import com.ecom.service.InventoryService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/inventory")
+@RequiredArgsConstructor
+public class InventoryController {
+
+    private final InventoryService inventoryService;
+
+    @PostMapping("/holds")
+    public ResponseEntity<ApiResponse<InventoryHoldResponse>> reserve(
+            @CurrentUser UserPrincipal principal,
+            @Valid @RequestBody InventoryHoldRequest request
+    ) {
+        InventoryHoldResponse response = inventoryService.reserve(
+                principal.getId(), request.getProductId(), request.getQuantity());
+        return ResponseEntity.status(HttpStatus.CREATED).body(ApiResponse.success("Stock reserved", response));
+    }
+
+    @PostMapping("/holds/{id}/confirm")
+    public ResponseEntity<ApiResponse<Void>> confirm(
+            @CurrentUser UserPrincipal principal,
+            @PathVariable Long id
+    ) {
+        inventoryService.confirm(principal.getId(), id);
+        return ResponseEntity.ok(ApiResponse.success("Reservation confirmed", null));
+    }
+
+    @PreAuthorize("hasAnyRole('ADMIN','STAFF')")
+    @GetMapping("/products/{productId}/ledger")
+    public ResponseEntity<ApiResponse<InventoryLedgerResponse>> getLedger(
+            @PathVariable Long productId,
+            @RequestParam(value = "limit", defaultValue = "50") int limit
+    ) {
+        if (limit < 1 || limit > 1000) {
+            throw new BadRequestException("Limit must be between 1 and 1000");
+        }
+        return ResponseEntity.ok(ApiResponse.success(inventoryService.getLedger(productId, limit)));
+    }
+
+    @DeleteMapping("/holds/{id}")
+    public ResponseEntity<ApiResponse<Void>> release(
+            @CurrentUser UserPrincipal principal,
+            @PathVariable Long id
+    ) {
+        inventoryService.release(principal.getId(), id);
+        return ResponseEntity.ok(ApiResponse.success("Reservation released", null));
+    }
+}
@@ -2,7 +2,13 @@ package com.ecom.controller;
 
 import com.ecom.dto.ProductRequest;
 import com.ecom.dto.*;
+import com.ecom.exception.BadRequestException;
+import com.ecom.service.CategoryService;
+import com.ecom.service.ProductExportService;
+import com.ecom.service.ProductImportService;
 import com.ecom.service.ProductService;
+import com.ecom.service.ProductStreamService;
+import com.ecom.service.SuggestionService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.*;
@@ -10,15 +16,30 @@ import org.springframework.http.*;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/products")
 @RequiredArgsConstructor
 public class ProductController {
 
+    private static final String DEFAULT_SORT = "createdAt,DESC";
+
     private final ProductService productService;
+    private final CategoryService categoryService;
+    private final ProductImportService productImportService;
+    private final ProductExportService productExportService;
+    private final SuggestionService suggestionService;
+    private final ProductStreamService productStreamService;
+    private final SerializedResponseCache responseCache;
 
     @PreAuthorize("hasAnyRole('ADMIN','STAFF')")
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -31,38 +52,147 @@ public class ProductController {
                 .body(ApiResponse.success("Product created successfully", response));
     }
 
+    // The body is read as a stream straight from the request, so feed size isn't bound by multipart limits
+    @PreAuthorize("hasAnyRole('ADMIN','STAFF')")
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ApiResponse<ProductImportResponse>> importProducts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body
+    ) {
+        ProductImportService.Format format = contentType.isCompatibleWith(MediaType.valueOf("text/csv"))
+                ? ProductImportService.Format.CSV
+                : ProductImportService.Format.NDJSON;
+        ProductImportResponse response = productImportService.importProducts(body, format);
+        return ResponseEntity.ok(ApiResponse.success("Import finished", response));
+    }
+
     @GetMapping
-    public ResponseEntity<ApiResponse<PagedResponse<ProductResponse>>> getProducts(
+    public ResponseEntity<ApiResponse<PagedResponse<ProductSummaryResponse>>> getProducts(
             @RequestParam(value = "page", defaultValue = "0") int page,
             @RequestParam(value = "size", defaultValue = "12") int size,
-            @RequestParam(value = "sort", defaultValue = "createdAt,DESC") String sort,
+            @RequestParam(value = "sort", required = false) String sort,
             @RequestParam(value = "categoryId", required = false) Long categoryId,
-            @RequestParam(value = "search", required = false) String search
+            @RequestParam(value = "categoryIds", required = false) Set<Long> categoryIds,
+            @RequestParam(value = "includeDescendants", defaultValue = "false") boolean includeDescendants,
+            @RequestParam(value = "search", required = false) String search,
+            @RequestParam(value = "minPrice", required = false) BigDecimal minPrice,
+            @RequestParam(value = "maxPrice", required = false) BigDecimal maxPrice,
+            @RequestParam(value = "inStock", defaultValue = "false") boolean inStock,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "count", defaultValue = "exact") String count,
+            @RequestParam(value = "facets", defaultValue = "false") boolean facets
     ) {
-        String[] sortParams = sort.split(",");
+        // Searches without an explicit sort are ranked by relevance
+        boolean rankByRelevance = sort == null && after == null && search != null && !search.isBlank();
+        String[] sortParams = (sort != null ? sort : DEFAULT_SORT).split(",");
         Sort.Direction direction = sortParams.length > 1
                 ? Sort.Direction.fromString(sortParams[1])
                 : Sort.Direction.DESC;
+        int pageSize = Math.min(Math.max(size, 1), 50);
+        Sort sortBy = rankByRelevance ? Sort.unsorted() : Sort.by(direction, sortParams[0]);
+
+        Set<Long> categories = new HashSet<>();
+        if (categoryIds != null) {
+            categories.addAll(categoryIds);
+        }
+        if (categoryId != null) {
+            categories.add(categoryId);
+        }
+        if (includeDescendants && !categories.isEmpty()) {
+            // Expanded from the in-memory tree, so the listing stays a single IN query
+            categories = categoryService.resolveSubtreeIds(categories);
+        }
+        ProductFilter filter = ProductFilter.builder()
+                .categoryIds(categories)
+                .search(search)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .inStockOnly(inStock)
+                .build();
+
+        // Cursor mode is opt-in: any `after` value (empty for the first page) switches to keyset paging
+        if (after != null) {
+            PagedResponse<ProductSummaryResponse> paged = productService.getProductsAfter(
+                    after, pageSize, sortBy, filter
+            );
+            if (facets) {
+                paged.setFacets(productService.getFacets(filter));
+            }
+            return ResponseEntity.ok(ApiResponse.success(paged));
+        }
+
         Pageable pageable = PageRequest.of(
                 Math.max(page, 0),
-                Math.min(size, 50),
-                Sort.by(direction, sortParams[0])
+                pageSize,
+                sortBy
         );
 
-        PagedResponse<ProductResponse> paged = productService.getProducts(
-                pageable, categoryId, search
+        PagedResponse.CountMode countMode;
+        try {
+            countMode = PagedResponse.CountMode.valueOf(count.toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("count must be one of exact, approx or none");
+        }
+
+        PagedResponse<ProductSummaryResponse> paged = productService.getProducts(
+                pageable, filter, countMode
         );
+        if (facets) {
+            paged.setFacets(productService.getFacets(filter));
+        }
         return ResponseEntity.ok(ApiResponse.success(paged));
     }
 
-    @GetMapping("/{slug}")
-    public ResponseEntity<ApiResponse<ProductResponse>> getProductBySlug(
-            @PathVariable String slug
+    @PreAuthorize("hasAnyRole('ADMIN','STAFF')")
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
     ) {
-        ProductResponse response = productService.getProductBySlug(slug);
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024);
+                productExportService.exportActiveProducts(compressed);
+                compressed.finish();
+            } else {
+                productExportService.exportActiveProducts(out);
+            }
+        };
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return builder.body(body);
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<ApiResponse<SuggestionResponse>> suggest(
+            @RequestParam("q") String query,
+            @RequestParam(value = "limit", defaultValue = "8") int limit
+    ) {
+        SuggestionResponse response = suggestionService.suggest(query, Math.min(Math.max(limit, 1), 20));
         return ResponseEntity.ok(ApiResponse.success(response));
     }
 
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamStock(@RequestParam("ids") Set<Long> ids) {
+        return productStreamService.subscribe(ids);
+    }
+
+    @GetMapping("/{slug}")
+    public ResponseEntity<byte[]> getProductBySlug(
+            @PathVariable String slug,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        ResponseEntity<byte[]> response = responseCache.respond("product:" + slug, acceptEncoding,
+                () -> ApiResponse.success(productService.getProductBySlug(slug)));
+        suggestionService.recordProductView(slug);
+        return response;
+    }
+
     @PreAuthorize("hasAnyRole('ADMIN','STAFF')")
     @PatchMapping("/{id}/inventory")
     public ResponseEntity<ApiResponse<ProductResponse>> updateInventory(
@@ -72,4 +202,37 @@ public class ProductController {
         ProductResponse response = productService.updateInventory(id, inventory);
         return ResponseEntity.ok(ApiResponse.success("Inventory updated", response));
     }
+
+    @PreAuthorize("hasAnyRole('ADMIN','STAFF')")
+    @PostMapping("/inventory/batch")
+    public ResponseEntity<ApiResponse<InventoryBatchResponse>> updateInventories(
+            @Valid @RequestBody InventoryBatchRequest request
+    ) {
+        InventoryBatchResponse response = productService.updateInventories(request.getUpdates());
+        return ResponseEntity.ok(ApiResponse.success("Inventory batch processed", response));
+    }
+
+    @PreAuthorize("hasAnyRole('ADMIN','STAFF')")
+    @PatchMapping("/{id}/inventory/shards")
+    public ResponseEntity<ApiResponse<ProductResponse>> updateStockShards(
+            @PathVariable Long id,
+            @RequestParam("shards") Integer shards
+    ) {
+        ProductResponse response = productService.updateStockShards(id, shards);
+        return ResponseEntity.ok(ApiResponse.success("Stock shards updated", response));
+    }
+
+    @PreAuthorize("hasAnyRole('ADMIN','STAFF')")
+    @PatchMapping("/{id}/price")
+    public ResponseEntity<ApiResponse<ProductResponse>> updatePrice(
+            @PathVariable Long id,
+            @RequestParam("priceBefore") BigDecimal priceBefore,
+            @RequestParam("priceAfter") BigDecimal priceAfter
+    ) {
+        if (priceBefore.signum() <= 0 || priceAfter.signum() <= 0) {
+            throw new BadRequestException("Price must be greater than 0");
+        }
+        ProductResponse response = productService.updatePrice(id, priceBefore, priceAfter);
+        return ResponseEntity.ok(ApiResponse.success("Price updated", response));
+    }
 }
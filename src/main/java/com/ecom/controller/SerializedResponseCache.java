@@ -0,0 +1,85 @@
+package com.ecom.controller;
+
+import com.ecom.config.CacheNames;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps catalog GET responses as ready-to-send bytes with a strong ETag over
+ * the JSON. Returning the ETag on the {@link ResponseEntity} lets Spring MVC
+ * answer a matching {@code If-None-Match} with 304, so a cache hit costs
+ * neither a query nor a Jackson pass. Entries are evicted by the services'
+ * write paths through {@link CacheNames#CATALOG_RESPONSES}; a body loaded
+ * before such an eviction is not kept (see {@code CacheConfig}).
+ */
+@Component
+@RequiredArgsConstructor
+class SerializedResponseCache {
+
+    // Smaller bodies aren't worth the gzip framing overhead
+    private static final int GZIP_THRESHOLD = 1024;
+
+    private final CacheManager cacheManager;
+    private final ObjectMapper objectMapper;
+
+    ResponseEntity<byte[]> respond(String key, String acceptEncoding, Supplier<?> loader) {
+        Cache cache = cacheManager.getCache(CacheNames.CATALOG_RESPONSES);
+        Cache.ValueWrapper cached = cache != null ? cache.get(key) : null;
+        Body body;
+        if (cached != null) {
+            body = (Body) cached.get();
+        } else {
+            body = serialize(loader.get());
+            if (cache != null) {
+                cache.put(key, body);
+            }
+        }
+
+        boolean gzip = body.gzip() != null && acceptEncoding != null && acceptEncoding.contains("gzip");
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .eTag(gzip ? body.etag() + "-gzip" : body.etag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return builder.body(gzip ? body.gzip() : body.json());
+    }
+
+    private Body serialize(Object value) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(value);
+            String etag = DigestUtils.md5DigestAsHex(json);
+            return new Body(json, json.length >= GZIP_THRESHOLD ? gzip(json) : null, etag);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize catalog response", ex);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return out.toByteArray();
+    }
+
+    private record Body(byte[] json, byte[] gzip, String etag) {
+    }
+}
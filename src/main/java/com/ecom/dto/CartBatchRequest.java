@@ -0,0 +1,34 @@
+package com.ecom.dto;
+
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.*;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class CartBatchRequest {
+
+    @NotEmpty(message = "At least one operation is required")
+    @Size(max = 200, message = "A batch cannot exceed 200 operations")
+    private List<@Valid @NotNull Operation> operations;
+
+    @Data
+    public static class Operation {
+
+        @NotNull(message = "Operation type is required")
+        private Type type;
+
+        @NotNull(message = "Product ID is required")
+        private Long productId;
+
+        // ADD: amount to add (at least 1); SET: new quantity (0 removes); REMOVE: ignored
+        @Min(value = 0, message = "Quantity cannot be negative")
+        private Integer quantity;
+    }
+
+    public enum Type {
+        ADD, SET, REMOVE
+    }
+}
@@ -0,0 +1,19 @@
+package com.ecom.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartSummaryResponse {
+    // null when the user has no cart yet
+    private Long id;
+    private Integer totalItems;
+    private BigDecimal totalAmount;
+}
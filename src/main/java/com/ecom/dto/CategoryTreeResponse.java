@@ -0,0 +1,19 @@
+package com.ecom.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryTreeResponse {
+    private Long id;
+    private String name;
+    private String slug;
+    private List<CategoryTreeResponse> children;
+}
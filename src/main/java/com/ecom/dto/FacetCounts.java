@@ -0,0 +1,33 @@
+package com.ecom.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetCounts {
+    // category id -> matching products, only categories with at least one match
+    private Map<Long, Long> categories;
+    private List<PriceBand> priceBands;
+    private long inStock;
+    private long total;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PriceBand {
+        private BigDecimal min;
+        // null for the open-ended top band
+        private BigDecimal max;
+        private long count;
+    }
+}
@@ -0,0 +1,21 @@
+package com.ecom.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GuestCartResponse {
+    // Send back as X-Cart-Token on later guest cart calls and on merge
+    private String token;
+    private List<CartItemResponse> items;
+    private BigDecimal totalAmount;
+    private Integer totalItems;
+}
@@ -0,0 +1,32 @@
+package com.ecom.dto;
+
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.*;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class InventoryBatchRequest {
+
+    @NotEmpty(message = "At least one update is required")
+    @Size(max = 10000, message = "A batch cannot exceed 10000 updates")
+    private List<@Valid @NotNull Update> updates;
+
+    @Data
+    public static class Update {
+
+        @NotNull(message = "Product ID is required")
+        private Long productId;
+
+        // Exactly one of inventory (new stock on hand, as for PATCH /{id}/inventory) and delta
+        @Min(value = 0, message = "Inventory cannot be negative")
+        private Integer inventory;
+
+        private Integer delta;
+
+        // Version the sender last saw; the update is refused if the product changed since
+        private Long version;
+    }
+}
@@ -0,0 +1,36 @@
+package com.ecom.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryBatchResponse {
+    private int updated;
+    private int failed;
+    // One per update, in request order
+    private List<Result> results;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Result {
+        private Long productId;
+        private Status status;
+        // Available stock and version after the update, or as found when it was refused
+        private Integer inventory;
+        private Long version;
+        private String message;
+    }
+
+    public enum Status {
+        UPDATED, CONFLICT, NOT_FOUND, INVALID
+    }
+}
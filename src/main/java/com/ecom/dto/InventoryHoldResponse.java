@@ -0,0 +1,19 @@
+package com.ecom.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryHoldResponse {
+    private Long id;
+    private Long productId;
+    private Integer quantity;
+    private LocalDateTime expiresAt;
+}
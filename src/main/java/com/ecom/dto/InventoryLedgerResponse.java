@@ -0,0 +1,39 @@
+package com.ecom.dto;
+
+import com.ecom.entity.InventoryMovement;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryLedgerResponse {
+    private Long productId;
+    // Available stock as the ledger has it, and as the live counters have it; they match unless something bypassed the ledger
+    private Integer stock;
+    private Integer inventory;
+    // null until the first compaction
+    private Integer snapshotQuantity;
+    private LocalDateTime snapshotAt;
+    private Integer pendingMovements;
+    // Newest first
+    private List<Movement> movements;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Movement {
+        private Long id;
+        private Integer delta;
+        private InventoryMovement.Reason reason;
+        private Long referenceId;
+        private LocalDateTime createdAt;
+    }
+}
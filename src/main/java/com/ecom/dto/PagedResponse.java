@@ -16,7 +16,22 @@ public class PagedResponse<T> {
     private List<T> content;
     private int pageNumber;
     private int pageSize;
-    private long totalElements;
-    private int totalPages;
+    private Long totalElements;
+    private Integer totalPages;
     private boolean last;
+    // Set only in cursor mode, where totals are not computed
+    private String nextCursor;
+    // Product listings only, when facets are requested
+    private FacetCounts facets;
+
+    /**
+     * How totals are produced for offset pages: EXACT runs a COUNT per request,
+     * APPROX serves a periodically refreshed cached count, NONE skips totals
+     * and only reports whether a next page exists.
+     */
+    public enum CountMode {
+        EXACT,
+        APPROX,
+        NONE
+    }
 }
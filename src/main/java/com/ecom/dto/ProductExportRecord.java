@@ -0,0 +1,27 @@
+package com.ecom.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductExportRecord {
+    private Long id;
+    private String name;
+    private String slug;
+    private BigDecimal priceBefore;
+    private BigDecimal priceAfter;
+    private Integer inventory;
+    private String descriptionHtml;
+    private List<Long> categoryIds;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,31 @@
+package com.ecom.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+/**
+ * Catalog listing filters. Every non-null field narrows the result; all of
+ * them are combined into a single query.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFilter {
+    private Set<Long> categoryIds;
+    private String search;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private boolean inStockOnly;
+    @Builder.Default
+    private boolean activeOnly = true;
+
+    public boolean hasSearch() {
+        return search != null && !search.isBlank();
+    }
+}
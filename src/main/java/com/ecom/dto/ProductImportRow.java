@@ -0,0 +1,38 @@
+package com.ecom.dto;
+
+
+import jakarta.validation.constraints.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * One record of a bulk import feed. In CSV the header names the columns and
+ * categoryIds is pipe-separated, e.g. "1|4".
+ */
+@Data
+public class ProductImportRow {
+
+    @NotBlank(message = "Product name is required")
+    @Size(max = 255, message = "Product name cannot exceed 255 characters")
+    private String name;
+
+    @NotNull(message = "Price before discount is required")
+    @DecimalMin(value = "0.0", inclusive = false, message = "Price must be greater than 0")
+    @Digits(integer = 8, fraction = 2, message = "Price must have at most 8 digits before and 2 after the decimal point")
+    private BigDecimal priceBefore;
+
+    @NotNull(message = "Price after discount is required")
+    @DecimalMin(value = "0.0", inclusive = false, message = "Price must be greater than 0")
+    @Digits(integer = 8, fraction = 2, message = "Price must have at most 8 digits before and 2 after the decimal point")
+    private BigDecimal priceAfter;
+
+    @NotNull(message = "Inventory is required")
+    @Min(value = 0, message = "Inventory cannot be negative")
+    private Integer inventory;
+
+    private String descriptionHtml;
+
+    private List<Long> categoryIds;
+}
@@ -22,6 +22,8 @@ public class ProductResponse {
     private BigDecimal priceBefore;
     private BigDecimal priceAfter;
     private Integer inventory;
+    private Integer stockShards;
+    private Long version;
     private String descriptionHtml;
     private Boolean isActive;
     private Set<CategoryResponse> categories;
@@ -0,0 +1,19 @@
+package com.ecom.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductStockEvent {
+    private Long productId;
+    private Integer inventory;
+    private BigDecimal priceBefore;
+    private BigDecimal priceAfter;
+}
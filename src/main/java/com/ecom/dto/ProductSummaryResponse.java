@@ -0,0 +1,23 @@
+package com.ecom.dto;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSummaryResponse {
+    private Long id;
+    private String name;
+    private String slug;
+    private BigDecimal priceBefore;
+    private BigDecimal priceAfter;
+    private Integer inventory;
+    private String primaryImageUrl;
+}
@@ -7,6 +7,8 @@ import lombok.*;
 @Entity
 @Table(name = "cart_items", uniqueConstraints = {
     @UniqueConstraint(columnNames = {"cart_id", "product_id"})
+}, indexes = {
+    @Index(name = "idx_cart_item_product", columnList = "product_id")
 })
 @Getter
 @Setter
@@ -16,7 +18,8 @@ import lombok.*;
 public class CartItem {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cart_item_seq")
+    @SequenceGenerator(name = "cart_item_seq", sequenceName = "cart_item_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
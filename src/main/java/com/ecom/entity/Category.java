@@ -10,7 +10,8 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "categories", indexes = {
-    @Index(name = "idx_category_slug", columnList = "slug", unique = true)
+    @Index(name = "idx_category_slug", columnList = "slug", unique = true),
+    @Index(name = "idx_category_path", columnList = "path")
 })
 @EntityListeners(AuditingEntityListener.class)
 @Getter
@@ -36,6 +37,10 @@ public class Category {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "parent_id")
     private Category parent;
+
+    // Materialized ancestry ending in this category's own id, e.g. "/1/4/9/"
+    @Column(length = 500)
+    private String path;
     
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
@@ -0,0 +1,32 @@
+package com.ecom.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Durable copy of a guest cart, written behind from the in-memory store so
+ * guest carts survive restarts. Items are kept as a JSON array.
+ */
+@Entity
+@Table(name = "guest_carts", indexes = {
+    @Index(name = "idx_guest_cart_updated_at", columnList = "updated_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GuestCartSnapshot {
+
+    @Id
+    @Column(length = 64)
+    private String token;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String items;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
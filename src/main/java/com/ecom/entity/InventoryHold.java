@@ -0,0 +1,45 @@
+package com.ecom.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stock taken out of products.inventory for a buyer until it is confirmed,
+ * released, or expires and is returned by the sweeper.
+ */
+@Entity
+@Table(name = "inventory_holds", indexes = {
+        @Index(name = "idx_inventory_hold_expires_at", columnList = "expires_at"),
+        @Index(name = "idx_inventory_hold_product", columnList = "product_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InventoryHold {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventory_hold_seq")
+    @SequenceGenerator(name = "inventory_hold_seq", sequenceName = "inventory_hold_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id", nullable = false)
+    private Product product;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    // The inventory_shards row the stock came from; null when it came from products.inventory
+    private Integer shard;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,55 @@
+package com.ecom.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One signed change of a product's available stock, written in the same
+ * transaction as the change itself. Rows are never edited, except that the
+ * compactor flags the ones it has folded into the product's
+ * {@link InventorySnapshot}. Written by {@code InventoryLedgerRepository}.
+ */
+@Entity
+@Table(name = "inventory_movements", indexes = {
+        @Index(name = "idx_inventory_movement_product", columnList = "product_id, id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InventoryMovement {
+
+    // Only ever inserted with plain SQL, so an identity column: a pooled sequence would burn a block per row
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // No foreign key: the history outlives deleted products
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer delta;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Reason reason;
+
+    // The inventory hold, for RESERVATION, RELEASE and EXPIRY
+    @Column(name = "reference_id")
+    private Long referenceId;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Boolean compacted = false;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public enum Reason {
+        RESTOCK, RESERVATION, RELEASE, EXPIRY, CORRECTION
+    }
+}
@@ -0,0 +1,41 @@
+package com.ecom.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+
+/**
+ * One slice of a sharded product's stock. Reservations decrement a single
+ * shard, so buyers of a hot product spread over N row locks instead of
+ * queueing on the products row. Read and written by
+ * {@code InventoryShardRepository}; this mapping creates the table.
+ */
+@Entity
+@Table(name = "inventory_shards")
+@IdClass(InventoryShard.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InventoryShard {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Id
+    private Integer shard;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long productId;
+        private Integer shard;
+    }
+}
@@ -22,7 +22,8 @@ import java.time.LocalDateTime;
 public class LoginAttempt {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "login_attempt_seq")
+    @SequenceGenerator(name = "login_attempt_seq", sequenceName = "login_attempt_seq", allocationSize = 50)
     private Long id;
     
     @Column(name = "ip_address", nullable = false, length = 45)
@@ -2,6 +2,7 @@ package com.ecom.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -16,18 +17,26 @@ import java.util.Set;
 @Entity
 @Table(name = "products", indexes = {
     @Index(name = "idx_product_slug", columnList = "slug", unique = true),
-    @Index(name = "idx_product_name", columnList = "name")
+    @Index(name = "idx_product_name", columnList = "name, id"),
+    @Index(name = "idx_product_created_at", columnList = "is_active, created_at, id"),
+    @Index(name = "idx_product_price_after", columnList = "is_active, price_after, id")
 })
 @EntityListeners(AuditingEntityListener.class)
+// Only changed columns are written, so saving a price edit can't put back a stale inventory count
+@DynamicUpdate
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Product {
+
+    // Ids per product_seq value (pooled-lo: the value is the low end); SQL inserts must use whole blocks too
+    public static final int ID_BLOCK_SIZE = 50;
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+    @SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = ID_BLOCK_SIZE)
     private Long id;
     
     @Column(nullable = false, length = 255)
@@ -46,9 +55,22 @@ public class Product {
     @Builder.Default
     private Integer inventory = 0;
     
+    // 0: stock lives in inventory; N: split over N inventory_shards rows and inventory is their last known sum
+    @Column(name = "stock_shards", nullable = false)
+    @Builder.Default
+    private Integer stockShards = 0;
+    
     @Column(name = "description_html", columnDefinition = "TEXT")
     private String descriptionHtml;
     
+    // Maintained by PostgreSQL: name weighted above the tag-stripped description
+    @Column(name = "search_vector", insertable = false, updatable = false,
+            columnDefinition = "tsvector GENERATED ALWAYS AS ("
+                    + "setweight(to_tsvector('english', coalesce(name, '')), 'A') || "
+                    + "setweight(to_tsvector('english', coalesce(regexp_replace(description_html, '<[^>]*>', ' ', 'g'), '')), 'B')"
+                    + ") STORED")
+    private String searchVector;
+    
     @Column(name = "is_active", nullable = false)
     @Builder.Default
     private Boolean isActive = true;
@@ -57,7 +79,8 @@ public class Product {
     @JoinTable(
         name = "product_categories",
         joinColumns = @JoinColumn(name = "product_id"),
-        inverseJoinColumns = @JoinColumn(name = "category_id")
+        inverseJoinColumns = @JoinColumn(name = "category_id"),
+        indexes = @Index(name = "idx_product_categories_category", columnList = "category_id, product_id")
     )
     @Builder.Default
     private Set<Category> categories = new HashSet<>();
@@ -66,6 +89,10 @@ public class Product {
     @Builder.Default
     private List<ProductImage> images = new ArrayList<>();
     
+    // Bumped by every catalog edit, not by reservations, which change inventory with their own guarded UPDATEs
+    @Version
+    private Long version;
+    
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
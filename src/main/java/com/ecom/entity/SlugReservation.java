@@ -0,0 +1,38 @@
+package com.ecom.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+
+/**
+ * One row per slug in use, per scope ("product", "category"). The primary key
+ * is what makes concurrent slug allocation safe: a reservation is claimed with
+ * INSERT ... ON CONFLICT DO NOTHING before the owning row is written.
+ */
+@Entity
+@Table(name = "slug_reservations")
+@IdClass(SlugReservation.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SlugReservation {
+
+    @Id
+    @Column(length = 20)
+    private String scope;
+
+    @Id
+    @Column(length = 300)
+    private String slug;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String scope;
+        private String slug;
+    }
+}
@@ -2,11 +2,54 @@ package com.ecom.repository;
 
 import com.ecom.entity.CartItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     Optional<CartItem> findByCartIdAndProductId(Long cartId, Long productId);
+    List<CartItem> findByCartId(Long cartId);
+
+    /**
+     * Adds {@code quantity} of a product to the user's cart in one statement,
+     * creating the cart and the line as needed and adding to the cart totals.
+     * Both inserts rely on unique keys (carts.user_id, cart_items(cart_id,
+     * product_id)), and the cart upsert locks the cart row, so concurrent adds
+     * sum up instead of overwriting each other. The product row is read FOR
+     * SHARE, so a price change waits for this add to commit (or the add for
+     * it) and its repricing of cart totals never misses or double-counts the
+     * line. Returns the line's new quantity,
+     * or empty if the product doesn't exist or has less stock than the new
+     * quantity; the caller must then roll back, as the totals were already added.
+     */
+    @Query(value = """
+            WITH product AS (
+                SELECT id, price_after, inventory FROM products WHERE id = :productId FOR SHARE
+            ), cart AS (
+                INSERT INTO carts (id, user_id, total_items, total_amount, updated_at)
+                SELECT nextval('cart_seq'), :userId, :quantity, :quantity * product.price_after, now()
+                FROM product
+                ON CONFLICT (user_id) DO UPDATE
+                    SET total_items = carts.total_items + EXCLUDED.total_items,
+                        total_amount = carts.total_amount + EXCLUDED.total_amount,
+                        updated_at = EXCLUDED.updated_at
+                RETURNING id
+            )
+            INSERT INTO cart_items (id, cart_id, product_id, quantity)
+            SELECT nextval('cart_item_seq'), cart.id, product.id, :quantity
+            FROM cart, product
+            WHERE product.inventory >= :quantity
+            ON CONFLICT (cart_id, product_id) DO UPDATE
+                SET quantity = cart_items.quantity + EXCLUDED.quantity
+                WHERE cart_items.quantity + EXCLUDED.quantity
+                      <= (SELECT inventory FROM products WHERE id = EXCLUDED.product_id)
+            RETURNING quantity
+            """, nativeQuery = true)
+    Optional<Integer> upsertQuantity(@Param("userId") Long userId,
+                                     @Param("productId") Long productId,
+                                     @Param("quantity") int quantity);
 }
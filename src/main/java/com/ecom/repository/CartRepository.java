@@ -1,12 +1,110 @@
 package com.ecom.repository;
 
 import com.ecom.entity.Cart;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CartRepository extends JpaRepository<Cart, Long> {
     Optional<Cart> findByUserId(Long userId);
+
+    // Same row lock the addToCart upsert takes, so batch edits and adds never interleave
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Cart c WHERE c.user.id = :userId")
+    Optional<Cart> findByUserIdForUpdate(@Param("userId") Long userId);
+
+    /**
+     * Creates an empty cart for the user unless one exists. Conflicts on
+     * carts.user_id like the addToCart upsert, so it waits for a concurrent
+     * creator instead of failing on the unique key.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO carts (id, user_id, total_items, total_amount, updated_at)
+            VALUES (nextval('cart_seq'), :userId, 0, 0, now())
+            ON CONFLICT (user_id) DO NOTHING
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Cart c WHERE c.id = :id")
+    Optional<Cart> findByIdForUpdate(@Param("id") Long id);
+
+    @Query("SELECT c.id AS id, c.totalItems AS totalItems, c.totalAmount AS totalAmount FROM Cart c WHERE c.user.id = :userId")
+    Optional<CartTotalsView> findTotalsByUserId(@Param("userId") Long userId);
+
+    /** Shifts the total of every cart holding the product by the price change times its quantity. */
+    @Modifying
+    @Query(value = "UPDATE carts c SET total_amount = c.total_amount + (:newPrice - :oldPrice) * i.quantity "
+            + "FROM cart_items i WHERE i.cart_id = c.id AND i.product_id = :productId", nativeQuery = true)
+    int repriceProduct(@Param("productId") Long productId,
+                       @Param("oldPrice") BigDecimal oldPrice,
+                       @Param("newPrice") BigDecimal newPrice);
+
+    /**
+     * Sets the cart's totals from its items at current prices. Run with the
+     * cart row already locked, so the sums come from a snapshot taken after
+     * any concurrent add to the cart has committed.
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE carts c SET total_items = t.items, total_amount = t.amount
+            FROM (SELECT coalesce(sum(i.quantity), 0) AS items,
+                         coalesce(sum(i.quantity * p.price_after), 0) AS amount
+                  FROM cart_items i
+                  JOIN products p ON p.id = i.product_id
+                  WHERE i.cart_id = :cartId) t
+            WHERE c.id = :cartId
+            """, nativeQuery = true)
+    int recomputeTotals(@Param("cartId") Long cartId);
+
+    /**
+     * Everything a cart view shows in one query: one row per item, or a single
+     * row with null item columns for an empty cart; no rows if there is no cart.
+     */
+    @Query("""
+            SELECT c.id AS cartId, c.totalItems AS totalItems, c.totalAmount AS totalAmount,
+                   i.id AS itemId, i.quantity AS quantity,
+                   p.id AS productId, p.name AS productName, p.slug AS productSlug, p.priceAfter AS price,
+                   (SELECT MIN(img.imageUrl) FROM ProductImage img
+                    WHERE img.product = p AND img.isPrimary = true) AS primaryImageUrl
+            FROM Cart c
+            LEFT JOIN c.items i
+            LEFT JOIN i.product p
+            WHERE c.user.id = :userId
+            ORDER BY i.id
+            """)
+    List<CartLineView> findCartLines(@Param("userId") Long userId);
+
+    @Query("SELECT DISTINCT c.user.id FROM CartItem i JOIN i.cart c WHERE i.product.id IN :productIds")
+    List<Long> findUserIdsWithProducts(@Param("productIds") Collection<Long> productIds);
+
+    interface CartLineView {
+        Long getCartId();
+        Integer getTotalItems();
+        BigDecimal getTotalAmount();
+        Long getItemId();
+        Integer getQuantity();
+        Long getProductId();
+        String getProductName();
+        String getProductSlug();
+        BigDecimal getPrice();
+        String getPrimaryImageUrl();
+    }
+
+    interface CartTotalsView {
+        Long getId();
+        Integer getTotalItems();
+        BigDecimal getTotalAmount();
+    }
 }
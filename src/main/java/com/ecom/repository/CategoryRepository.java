@@ -2,13 +2,29 @@ package com.ecom.repository;
 
 import com.ecom.entity.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
     Optional<Category> findBySlug(String slug);
     Boolean existsBySlug(String slug);
     Boolean existsByName(String name);
+
+    @Query("SELECT c.id AS id, c.name AS name, c.slug AS slug, c.path AS path FROM Category c")
+    List<CategoryNodeView> findAllNodes();
+
+    @Query("SELECT c.id FROM Category c")
+    Set<Long> findAllIds();
+
+    interface CategoryNodeView {
+        Long getId();
+        String getName();
+        String getSlug();
+        String getPath();
+    }
 }
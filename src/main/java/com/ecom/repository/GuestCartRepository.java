@@ -0,0 +1,47 @@
+package com.ecom.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Write-behind storage for guest carts. Plain JDBC so a whole flush is one
+ * batched upsert; the table itself is mapped by {@code GuestCartSnapshot}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class GuestCartRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Optional<String> findItems(String token) {
+        List<String> items = jdbcTemplate.queryForList(
+                "SELECT items FROM guest_carts WHERE token = ?", String.class, token);
+        return items.stream().findFirst();
+    }
+
+    public void upsertAll(Map<String, String> itemsByToken) {
+        if (itemsByToken.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(itemsByToken.size());
+        itemsByToken.forEach((token, items) -> rows.add(new Object[]{token, items}));
+        jdbcTemplate.batchUpdate("INSERT INTO guest_carts (token, items, updated_at) VALUES (?, ?, now()) "
+                + "ON CONFLICT (token) DO UPDATE SET items = EXCLUDED.items, updated_at = EXCLUDED.updated_at", rows);
+    }
+
+    public void delete(String token) {
+        jdbcTemplate.update("DELETE FROM guest_carts WHERE token = ?", token);
+    }
+
+    public int deleteNotUpdatedSince(LocalDateTime cutoff) {
+        return jdbcTemplate.update("DELETE FROM guest_carts WHERE updated_at < ?", Timestamp.valueOf(cutoff));
+    }
+}
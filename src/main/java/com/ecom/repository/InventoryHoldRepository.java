@@ -0,0 +1,113 @@
+package com.ecom.repository;
+
+import com.ecom.entity.InventoryHold;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface InventoryHoldRepository extends JpaRepository<InventoryHold, Long> {
+
+    /** Held units of a product, expired or not: all of them are out of its available stock. */
+    @Query("SELECT COALESCE(SUM(h.quantity), 0) FROM InventoryHold h WHERE h.product.id = :productId")
+    int sumQuantityByProductId(@Param("productId") Long productId);
+
+    /**
+     * Drops every hold on a product that is being deleted, with a RELEASE
+     * movement per hold so the ledger still sums to the stock it had.
+     */
+    @Modifying
+    @Query(value = """
+            WITH released AS (
+                DELETE FROM inventory_holds WHERE product_id = :productId
+                RETURNING id, product_id, quantity
+            )
+            INSERT INTO inventory_movements (product_id, delta, reason, reference_id, compacted, created_at)
+            SELECT product_id, quantity, 'RELEASE', id, false, now() FROM released
+            """, nativeQuery = true)
+    int releaseByProductId(@Param("productId") Long productId);
+
+    /** Consumes a live hold; its stock stays out of products.inventory. */
+    @Modifying
+    @Query("DELETE FROM InventoryHold h WHERE h.id = :id AND h.user.id = :userId AND h.expiresAt > :now")
+    int confirm(@Param("id") Long id, @Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    /**
+     * Deletes the hold and puts its stock back, into its shard or the
+     * products row, and records it in the ledger, in one statement. The delete decides who returns the
+     * stock, so a release racing the sweeper (or a second release) finds no
+     * row and returns nothing.
+     */
+    @Query(value = """
+            WITH released AS (
+                DELETE FROM inventory_holds WHERE id = :id AND user_id = :userId
+                RETURNING id, product_id, shard, quantity
+            ), movements AS (
+                INSERT INTO inventory_movements (product_id, delta, reason, reference_id, compacted, created_at)
+                SELECT product_id, quantity, 'RELEASE', id, false, now() FROM released
+            ), to_products AS (
+                UPDATE products p SET inventory = p.inventory + r.quantity
+                FROM released r
+                WHERE p.id = r.product_id AND r.shard IS NULL
+            ), to_shards AS (
+                UPDATE inventory_shards s SET quantity = s.quantity + r.quantity
+                FROM released r
+                WHERE s.product_id = r.product_id AND s.shard = r.shard
+            )
+            SELECT product_id AS productId, shard, quantity FROM released
+            """, nativeQuery = true)
+    Optional<ReturnedStock> release(@Param("id") Long id, @Param("userId") Long userId);
+
+    /**
+     * Returns the stock of up to {@code limit} expired holds, one UPDATE per
+     * product or shard, with one ledger movement per hold. SKIP LOCKED lets several instances sweep without
+     * waiting on each other or on a release in flight.
+     */
+    @Query(value = """
+            WITH expired AS (
+                DELETE FROM inventory_holds WHERE id IN (
+                    SELECT id FROM inventory_holds
+                    WHERE expires_at <= :now
+                    ORDER BY expires_at
+                    LIMIT :limit
+                    FOR UPDATE SKIP LOCKED
+                )
+                RETURNING id, product_id, shard, quantity
+            ), movements AS (
+                INSERT INTO inventory_movements (product_id, delta, reason, reference_id, compacted, created_at)
+                SELECT product_id, quantity, 'EXPIRY', id, false, :now FROM expired
+            ), returned AS (
+                SELECT product_id, shard, CAST(SUM(quantity) AS integer) AS quantity
+                FROM expired
+                GROUP BY product_id, shard
+            ), to_products AS (
+                UPDATE products p SET inventory = p.inventory + r.quantity
+                FROM returned r
+                WHERE p.id = r.product_id AND r.shard IS NULL
+            ), to_shards AS (
+                UPDATE inventory_shards s SET quantity = s.quantity + r.quantity
+                FROM returned r
+                WHERE s.product_id = r.product_id AND s.shard = r.shard
+            )
+            SELECT product_id AS productId, shard, quantity FROM returned
+            """, nativeQuery = true)
+    List<ReturnedStock> releaseExpired(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /** Points the product's holds at its new shards, so their stock returns to a row that exists. */
+    @Modifying
+    @Query(value = "UPDATE inventory_holds SET shard = CASE WHEN :shards = 0 THEN NULL "
+            + "ELSE CAST(id % :shards AS integer) END WHERE product_id = :productId", nativeQuery = true)
+    int reassignShards(@Param("productId") Long productId, @Param("shards") int shards);
+
+    interface ReturnedStock {
+        Long getProductId();
+        Integer getShard();
+        Integer getQuantity();
+    }
+}
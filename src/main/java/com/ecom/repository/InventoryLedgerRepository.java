@@ -0,0 +1,123 @@
+package com.ecom.repository;
+
+import com.ecom.entity.InventoryMovement.Reason;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The inventory ledger (mapped by {@code InventoryMovement} and
+ * {@code InventorySnapshot}). Movements are plain inserts, so writers never
+ * wait on each other; a product's stock is its snapshot plus the movements
+ * not yet compacted into it, a tail bounded by how often compaction runs.
+ */
+@Repository
+@RequiredArgsConstructor
+public class InventoryLedgerRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Appends the movements as one batch; zero deltas are skipped. */
+    public void append(List<Movement> movements) {
+        List<Object[]> rows = new ArrayList<>(movements.size());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (Movement movement : movements) {
+            if (movement.delta() != 0) {
+                rows.add(new Object[]{movement.productId(), movement.delta(), movement.reason().name(),
+                        movement.referenceId(), now});
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO inventory_movements "
+                + "(product_id, delta, reason, reference_id, compacted, created_at) "
+                + "VALUES (?, ?, ?, ?, false, ?)", rows);
+    }
+
+    /**
+     * Folds up to {@code limit} uncompacted movements into their products'
+     * snapshots and returns how many were folded. Flagging and adding happen
+     * in one statement, so a stock read sees a movement in exactly one of the
+     * two places. Movements of transactions still open are invisible here and
+     * wait for a later run.
+     */
+    public int compact(int limit) {
+        Integer folded = jdbcTemplate.queryForObject("""
+                WITH folded AS (
+                    UPDATE inventory_movements SET compacted = true
+                    WHERE id IN (
+                        SELECT id FROM inventory_movements
+                        WHERE NOT compacted
+                        LIMIT ?
+                        FOR UPDATE SKIP LOCKED
+                    )
+                    RETURNING id, product_id, delta
+                ), totals AS (
+                    SELECT product_id, SUM(delta) AS delta, MAX(id) AS last_id
+                    FROM folded
+                    GROUP BY product_id
+                ), snapshots AS (
+                    INSERT INTO inventory_snapshots (product_id, quantity, last_movement_id, taken_at)
+                    SELECT product_id, delta, last_id, now() FROM totals
+                    ON CONFLICT (product_id) DO UPDATE
+                        SET quantity = inventory_snapshots.quantity + EXCLUDED.quantity,
+                            last_movement_id = GREATEST(inventory_snapshots.last_movement_id,
+                                                        EXCLUDED.last_movement_id),
+                            taken_at = EXCLUDED.taken_at
+                )
+                SELECT CAST(COUNT(*) AS integer) FROM folded
+                """, Integer.class, limit);
+        return folded != null ? folded : 0;
+    }
+
+    /** Stock according to the ledger: the snapshot plus the uncompacted tail. */
+    public Balance findBalance(Long productId) {
+        return jdbcTemplate.queryForObject("""
+                SELECT s.quantity AS snapshot_quantity, s.taken_at, t.pending,
+                       COALESCE(s.quantity, 0) + t.delta AS stock
+                FROM (SELECT CAST(? AS bigint) AS product_id) p
+                LEFT JOIN inventory_snapshots s ON s.product_id = p.product_id
+                CROSS JOIN LATERAL (
+                    SELECT CAST(COALESCE(SUM(m.delta), 0) AS integer) AS delta,
+                           CAST(COUNT(*) AS integer) AS pending
+                    FROM inventory_movements m
+                    WHERE m.product_id = p.product_id AND NOT m.compacted
+                ) t
+                """, (rs, rowNum) -> {
+            Timestamp takenAt = rs.getTimestamp("taken_at");
+            return new Balance(
+                    rs.getInt("stock"),
+                    (Integer) rs.getObject("snapshot_quantity"),
+                    takenAt != null ? takenAt.toLocalDateTime() : null,
+                    rs.getInt("pending"));
+        }, productId);
+    }
+
+    /** The product's latest movements, newest first. */
+    public List<RecordedMovement> findRecent(Long productId, int limit) {
+        return jdbcTemplate.query("SELECT id, delta, reason, reference_id, created_at FROM inventory_movements "
+                        + "WHERE product_id = ? ORDER BY id DESC LIMIT ?",
+                (rs, rowNum) -> new RecordedMovement(
+                        rs.getLong("id"),
+                        rs.getInt("delta"),
+                        Reason.valueOf(rs.getString("reason")),
+                        (Long) rs.getObject("reference_id"),
+                        rs.getTimestamp("created_at").toLocalDateTime()),
+                productId, limit);
+    }
+
+    public record Movement(Long productId, int delta, Reason reason, Long referenceId) {
+    }
+
+    public record RecordedMovement(Long id, int delta, Reason reason, Long referenceId, LocalDateTime createdAt) {
+    }
+
+    public record Balance(int stock, Integer snapshotQuantity, LocalDateTime snapshotAt, int pendingMovements) {
+    }
+}
@@ -0,0 +1,183 @@
+package com.ecom.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+
+/**
+ * Stock of sharded products, one inventory_shards row per shard (mapped by
+ * {@code InventoryShard}). Plain JDBC: every statement here is a single
+ * conditional write, or a locked read or write of the shards of one product
+ * or of a whole batch of products.
+ */
+@Repository
+@RequiredArgsConstructor
+public class InventoryShardRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Current stock of a product: its shard quantities in shard order, or its
+     * single inventory value when it is not sharded; empty if there is no such product.
+     * The slug comes along for the caches keyed by it.
+     */
+    public Optional<StockLevels> findStockLevels(Long productId) {
+        List<Object[]> rows = jdbcTemplate.query("""
+                SELECT p.stock_shards, p.inventory, s.quantity, p.slug
+                FROM products p
+                LEFT JOIN inventory_shards s ON s.product_id = p.id AND p.stock_shards > 0
+                WHERE p.id = ?
+                ORDER BY s.shard
+                """, (rs, rowNum) -> new Object[]{rs.getInt(1), rs.getInt(2), (Integer) rs.getObject(3),
+                rs.getString(4)}, productId);
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        String slug = (String) rows.get(0)[3];
+        if ((Integer) rows.get(0)[0] == 0) {
+            return Optional.of(new StockLevels(slug, false, new int[]{(Integer) rows.get(0)[1]}));
+        }
+        return Optional.of(new StockLevels(slug, true, rows.stream()
+                .filter(row -> row[2] != null)
+                .mapToInt(row -> (Integer) row[2])
+                .toArray()));
+    }
+
+    /** Same contract as {@code ProductRepository.decrementInventory}, for one shard. */
+    public Optional<Integer> decrement(Long productId, int shard, int quantity) {
+        return jdbcTemplate.queryForList("UPDATE inventory_shards SET quantity = quantity - ? "
+                        + "WHERE product_id = ? AND shard = ? AND quantity >= ? RETURNING quantity",
+                Integer.class, quantity, productId, shard, quantity).stream().findFirst();
+    }
+
+    /** Locks every shard of the product, always in shard order so lockers can't deadlock. */
+    public int[] lockShards(Long productId) {
+        return jdbcTemplate.queryForList(
+                        "SELECT quantity FROM inventory_shards WHERE product_id = ? ORDER BY shard FOR UPDATE",
+                        Integer.class, productId).stream()
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * Locks every shard of the products in one statement, in (product, shard)
+     * order like {@link #rebalance}; quantities per product in shard order.
+     * The product rows must already be locked.
+     */
+    public Map<Long, int[]> lockShards(Collection<Long> productIds) {
+        Map<Long, List<Integer>> quantities = new HashMap<>();
+        jdbcTemplate.query("SELECT product_id, quantity FROM inventory_shards WHERE product_id = ANY (?) "
+                        + "ORDER BY product_id, shard FOR UPDATE",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", productIds.toArray())),
+                rs -> {
+                    quantities.computeIfAbsent(rs.getLong(1), id -> new ArrayList<>()).add(rs.getInt(2));
+                });
+        Map<Long, int[]> locked = new HashMap<>();
+        quantities.forEach((productId, values) -> locked.put(productId,
+                values.stream().mapToInt(Integer::intValue).toArray()));
+        return locked;
+    }
+
+    /** Writes new quantities, in shard order, for the shards of many products locked with {@link #lockShards(Collection)}. */
+    public void updateAll(Map<Long, int[]> quantities) {
+        List<Long> productIds = new ArrayList<>();
+        List<Integer> shards = new ArrayList<>();
+        List<Integer> values = new ArrayList<>();
+        quantities.forEach((productId, perShard) -> {
+            for (int shard = 0; shard < perShard.length; shard++) {
+                productIds.add(productId);
+                shards.add(shard);
+                values.add(perShard[shard]);
+            }
+        });
+        if (productIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update("""
+                UPDATE inventory_shards s SET quantity = v.quantity
+                FROM unnest(?, ?, ?) AS v(product_id, shard, quantity)
+                WHERE s.product_id = v.product_id AND s.shard = v.shard
+                """, ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("bigint", productIds.toArray()));
+            ps.setArray(2, ps.getConnection().createArrayOf("integer", shards.toArray()));
+            ps.setArray(3, ps.getConnection().createArrayOf("integer", values.toArray()));
+        });
+    }
+
+    /** Writes new quantities for shards already locked with {@link #lockShards}. */
+    public void update(Long productId, int[] quantities) {
+        List<Object[]> rows = new ArrayList<>(quantities.length);
+        for (int shard = 0; shard < quantities.length; shard++) {
+            rows.add(new Object[]{quantities[shard], productId, shard});
+        }
+        jdbcTemplate.batchUpdate("UPDATE inventory_shards SET quantity = ? WHERE product_id = ? AND shard = ?", rows);
+    }
+
+    /** Replaces the product's shards with one row per quantity (none for an empty array). */
+    public void replace(Long productId, int[] quantities) {
+        deleteByProductId(productId);
+        List<Object[]> rows = new ArrayList<>(quantities.length);
+        for (int shard = 0; shard < quantities.length; shard++) {
+            rows.add(new Object[]{productId, shard, quantities[shard]});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO inventory_shards (product_id, shard, quantity) VALUES (?, ?, ?)", rows);
+    }
+
+    public void deleteByProductId(Long productId) {
+        jdbcTemplate.update("DELETE FROM inventory_shards WHERE product_id = ?", productId);
+    }
+
+    public int sumByProductId(Long productId) {
+        Integer sum = jdbcTemplate.queryForObject(
+                "SELECT CAST(COALESCE(SUM(quantity), 0) AS integer) FROM inventory_shards WHERE product_id = ?",
+                Integer.class, productId);
+        return sum != null ? sum : 0;
+    }
+
+    /**
+     * Evens out the shards of each product whose shards have drifted more than
+     * one unit apart, and writes every product's total back to
+     * products.inventory for listings and facets. Returns the rewritten shards.
+     * Product rows are locked before shards, the order the other writers of both use.
+     */
+    public List<ShardLevel> rebalance(Collection<Long> productIds) {
+        return jdbcTemplate.query("""
+                WITH locked_products AS (
+                    SELECT id FROM products
+                    WHERE id = ANY (?)
+                    ORDER BY id
+                    FOR NO KEY UPDATE
+                ), locked AS (
+                    SELECT product_id, shard, quantity
+                    FROM inventory_shards
+                    WHERE product_id IN (SELECT id FROM locked_products)
+                    ORDER BY product_id, shard
+                    FOR UPDATE
+                ), totals AS (
+                    SELECT product_id, SUM(quantity) AS total, COUNT(*) AS shards,
+                           MAX(quantity) - MIN(quantity) AS spread
+                    FROM locked
+                    GROUP BY product_id
+                ), summed AS (
+                    UPDATE products p SET inventory = t.total
+                    FROM totals t
+                    WHERE p.id = t.product_id AND p.inventory <> t.total
+                )
+                UPDATE inventory_shards s
+                SET quantity = t.total / t.shards + CASE WHEN s.shard < t.total % t.shards THEN 1 ELSE 0 END
+                FROM totals t
+                WHERE s.product_id = t.product_id AND t.spread > 1
+                RETURNING s.product_id, s.shard, s.quantity
+                """,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", productIds.toArray())),
+                (rs, rowNum) -> new ShardLevel(rs.getLong(1), rs.getInt(2), rs.getInt(3)));
+    }
+
+    public record StockLevels(String slug, boolean sharded, int[] quantities) {
+    }
+
+    public record ShardLevel(Long productId, int shard, int quantity) {
+    }
+}
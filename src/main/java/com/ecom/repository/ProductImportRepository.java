@@ -0,0 +1,145 @@
+package com.ecom.repository;
+
+import com.ecom.entity.Product;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Set-based product import: rows are streamed into a temporary staging table
+ * with COPY and merged into products, product_categories and the inventory
+ * ledger by one statement.
+ * Must run inside a transaction; the staging table is dropped on commit.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProductImportRepository {
+
+    private static final String STAGING_COLUMNS =
+            "source_row, name, slug, price_before, price_after, inventory, description_html, category_ids";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void createStagingTable() {
+        jdbcTemplate.execute("CREATE TEMP TABLE product_import_staging ("
+                + "source_row bigint, name varchar(255), slug varchar(300), "
+                + "price_before numeric(10,2), price_after numeric(10,2), inventory integer, "
+                + "description_html text, category_ids bigint[]) ON COMMIT DROP");
+    }
+
+    public long copyToStaging(List<StagedProduct> rows) {
+        StringBuilder csv = new StringBuilder(rows.size() * 256);
+        for (StagedProduct row : rows) {
+            csv.append(row.rowNumber()).append(',');
+            appendQuoted(csv, row.name()).append(',');
+            appendQuoted(csv, row.slug()).append(',');
+            csv.append(row.priceBefore().toPlainString()).append(',');
+            csv.append(row.priceAfter().toPlainString()).append(',');
+            csv.append(row.inventory()).append(',');
+            appendQuoted(csv, row.descriptionHtml()).append(',');
+            appendQuoted(csv, row.categoryIds().stream()
+                    .map(String::valueOf)
+                    .collect(Collectors.joining(",", "{", "}")));
+            csv.append('\n');
+        }
+
+        String sql = "COPY product_import_staging (" + STAGING_COLUMNS + ") FROM STDIN WITH (FORMAT csv)";
+        Long copied = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql, new StringReader(csv.toString()));
+            } catch (IOException ex) {
+                throw new IllegalStateException("COPY into product_import_staging failed", ex);
+            }
+        });
+        return copied != null ? copied : 0;
+    }
+
+    /**
+     * Inserts every staged row and links its categories; returns what was
+     * inserted. Ids are taken the way Hibernate's pooled-lo optimizer takes
+     * them, one product_seq value per block of rows, so imports don't spend a
+     * block per row and leave the ids dense.
+     */
+    public List<ImportedProduct> mergeStaging() {
+        // Temp tables have no statistics until analyzed, which leads to poor join plans
+        jdbcTemplate.execute("ANALYZE product_import_staging");
+        return jdbcTemplate.query("""
+                WITH numbered AS (
+                    SELECT s.*, ROW_NUMBER() OVER (ORDER BY source_row) - 1 AS n FROM product_import_staging s
+                ), blocks AS (
+                    SELECT b / %1$d AS block, nextval('product_seq') AS lo
+                    FROM generate_series(0, (SELECT COUNT(*) - 1 FROM product_import_staging), %1$d) AS b
+                ), inserted AS (
+                    INSERT INTO products (id, name, slug, price_before, price_after, inventory, stock_shards,
+                                          description_html, is_active, version, created_at, updated_at)
+                    SELECT blocks.lo + n %% %1$d, name, slug, price_before, price_after, inventory, 0,
+                           description_html, true, 0, now(), now()
+                    FROM numbered
+                    JOIN blocks ON blocks.block = n / %1$d
+                    ORDER BY source_row
+                    RETURNING id, slug, inventory
+                ), movements AS (
+                    INSERT INTO inventory_movements (product_id, delta, reason, reference_id, compacted, created_at)
+                    SELECT id, inventory, 'RESTOCK', NULL, false, now() FROM inserted WHERE inventory <> 0
+                ), linked AS (
+                    INSERT INTO product_categories (product_id, category_id)
+                    SELECT DISTINCT i.id, c.category_id
+                    FROM inserted i
+                    JOIN product_import_staging s ON s.slug = i.slug
+                    CROSS JOIN LATERAL unnest(s.category_ids) AS c(category_id)
+                )
+                SELECT i.id, s.name, s.slug, s.price_after, s.inventory, s.category_ids
+                FROM inserted i
+                JOIN product_import_staging s ON s.slug = i.slug
+                """.formatted(Product.ID_BLOCK_SIZE), (rs, rowNum) -> new ImportedProduct(
+                rs.getLong("id"),
+                rs.getString("name"),
+                rs.getString("slug"),
+                rs.getBigDecimal("price_after"),
+                rs.getInt("inventory"),
+                toIds(rs.getArray("category_ids"))
+        ));
+    }
+
+    private static List<Long> toIds(Array array) throws SQLException {
+        if (array == null) {
+            return List.of();
+        }
+        return Arrays.asList((Long[]) array.getArray());
+    }
+
+    private static StringBuilder appendQuoted(StringBuilder csv, String value) {
+        // An unquoted empty field is NULL in COPY csv; a quoted one is an empty string
+        if (value == null) {
+            return csv;
+        }
+        csv.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                csv.append('"');
+            }
+            csv.append(c);
+        }
+        return csv.append('"');
+    }
+
+    public record StagedProduct(long rowNumber, String name, String slug, BigDecimal priceBefore,
+                                BigDecimal priceAfter, int inventory, String descriptionHtml,
+                                Collection<Long> categoryIds) {
+    }
+
+    public record ImportedProduct(Long id, String name, String slug, BigDecimal priceAfter, int inventory,
+                                  List<Long> categoryIds) {
+    }
+}
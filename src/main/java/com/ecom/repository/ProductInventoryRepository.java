@@ -0,0 +1,104 @@
+package com.ecom.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Set-based inventory access for many products at once. A bulk write is one
+ * locking read, one read of held units, and one JDBC batch of version-guarded
+ * updates, whatever the number of products; it must run inside a transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProductInventoryRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Locks the products in id order, the order every multi-product writer
+     * uses. NO KEY UPDATE, like JPA's pessimistic write lock here, still lets
+     * reservations insert holds that reference the rows.
+     */
+    public Map<Long, LockedProduct> lockForUpdate(Collection<Long> productIds) {
+        Map<Long, LockedProduct> locked = new HashMap<>();
+        jdbcTemplate.query("SELECT id, slug, version, inventory, stock_shards FROM products "
+                        + "WHERE id = ANY (?) ORDER BY id FOR NO KEY UPDATE",
+                ps -> ps.setArray(1, ids(ps.getConnection(), productIds)),
+                rs -> {
+                    locked.put(rs.getLong("id"), new LockedProduct(
+                            rs.getLong("id"),
+                            rs.getString("slug"),
+                            rs.getLong("version"),
+                            rs.getInt("inventory"),
+                            rs.getInt("stock_shards")));
+                });
+        return locked;
+    }
+
+    /** Held units per product; products without holds are absent. */
+    public Map<Long, Integer> sumHeld(Collection<Long> productIds) {
+        Map<Long, Integer> held = new HashMap<>();
+        jdbcTemplate.query("SELECT product_id, CAST(SUM(quantity) AS integer) FROM inventory_holds "
+                        + "WHERE product_id = ANY (?) GROUP BY product_id",
+                ps -> ps.setArray(1, ids(ps.getConnection(), productIds)),
+                rs -> {
+                    held.put(rs.getLong(1), rs.getInt(2));
+                });
+        return held;
+    }
+
+    /** Applies the writes as one batch; true for each write whose version still matched. */
+    public boolean[] updateInventory(List<InventoryWrite> writes) {
+        List<Object[]> rows = new ArrayList<>(writes.size());
+        for (InventoryWrite write : writes) {
+            rows.add(new Object[]{write.inventory(), write.productId(), write.expectedVersion()});
+        }
+        int[] counts = jdbcTemplate.batchUpdate("UPDATE products SET inventory = ?, version = version + 1, "
+                + "updated_at = now() WHERE id = ? AND version = ?", rows);
+
+        boolean[] applied = new boolean[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            applied[i] = counts[i] == 1;
+        }
+        return applied;
+    }
+
+    /** Live stock and prices; a sharded product's stock is the sum of its shards. Missing ids are skipped. */
+    public List<StockLevel> findStockLevels(Collection<Long> productIds) {
+        return jdbcTemplate.query("""
+                        SELECT p.id, p.price_before, p.price_after,
+                               CASE WHEN p.stock_shards > 0
+                                    THEN (SELECT CAST(COALESCE(SUM(s.quantity), 0) AS integer)
+                                          FROM inventory_shards s WHERE s.product_id = p.id)
+                                    ELSE p.inventory END AS inventory
+                        FROM products p
+                        WHERE p.id = ANY (?)
+                        """,
+                ps -> ps.setArray(1, ids(ps.getConnection(), productIds)),
+                (rs, rowNum) -> new StockLevel(
+                        rs.getLong("id"),
+                        rs.getInt("inventory"),
+                        rs.getBigDecimal("price_before"),
+                        rs.getBigDecimal("price_after")));
+    }
+
+    private static Array ids(Connection connection, Collection<Long> productIds) throws SQLException {
+        return connection.createArrayOf("bigint", productIds.toArray());
+    }
+
+    public record LockedProduct(Long id, String slug, long version, int inventory, int stockShards) {
+    }
+
+    public record StockLevel(Long productId, int inventory, BigDecimal priceBefore, BigDecimal priceAfter) {
+    }
+
+    public record InventoryWrite(Long productId, int inventory, long expectedVersion) {
+    }
+}
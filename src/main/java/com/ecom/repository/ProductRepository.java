@@ -2,27 +2,83 @@ package com.ecom.repository;
 
 
 import com.ecom.entity.Product;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>,
+        ProductRepositoryCustom {
     Optional<Product> findBySlug(String slug);
     Boolean existsBySlug(String slug);
     
-    @Query("SELECT p FROM Product p WHERE p.isActive = true")
-    Page<Product> findAllActive(Pageable pageable);
-    
-    @Query("SELECT p FROM Product p JOIN p.categories c WHERE c.id = :categoryId AND p.isActive = true")
-    Page<Product> findByCategoryIdAndActive(@Param("categoryId") Long categoryId, Pageable pageable);
-    
-    @Query("SELECT p FROM Product p WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%')) AND p.isActive = true")
-    Page<Product> searchByNameAndActive(@Param("keyword") String keyword, Pageable pageable);
+    @Query("SELECT p.id AS id, p.name AS name, p.slug AS slug FROM Product p WHERE p.isActive = true")
+    List<ProductNameView> findActiveNames();
+
+    @Query("SELECT c.id, COUNT(p) FROM Product p JOIN p.categories c WHERE p.isActive = true GROUP BY c.id")
+    List<Object[]> countActiveByCategory();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT p.id, p.priceAfter, p.inventory FROM Product p WHERE p.isActive = true")
+    Stream<Object[]> streamActiveFacetRows();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT p.id, c.id FROM Product p JOIN p.categories c WHERE p.isActive = true")
+    Stream<Object[]> streamActiveCategoryLinks();
+
+    // Scalar rows of the exported columns only: nothing enters the persistence context
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+            SELECT p.id, p.name, p.slug, p.priceBefore, p.priceAfter, p.inventory,
+                   p.descriptionHtml, p.createdAt, p.updatedAt
+            FROM Product p WHERE p.isActive = true ORDER BY p.id
+            """)
+    Stream<Object[]> streamActiveExportRows();
+
+    @Query("SELECT p.id, c.id FROM Product p JOIN p.categories c WHERE p.id IN :ids")
+    List<Object[]> findCategoryLinks(@Param("ids") Collection<Long> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id = :id")
+    Optional<Product> findByIdForUpdate(@Param("id") Long id);
+
+    // The price lock the single-item add takes too; ordered so batches can't deadlock on each other
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT p FROM Product p WHERE p.id IN :ids ORDER BY p.id")
+    List<Product> findAllByIdForShare(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT p.inventory FROM Product p WHERE p.id = :id")
+    Optional<Integer> findInventoryById(@Param("id") Long id);
+
+    /**
+     * Takes stock only if enough is left and returns what remains; empty when
+     * it isn't (or the product doesn't exist). The row lock serializes
+     * concurrent buyers, and each re-checks the condition against the
+     * committed count, so stock can never go negative. Sharded products
+     * never match: their stock is in inventory_shards.
+     */
+    @Query(value = "UPDATE products SET inventory = inventory - :quantity "
+            + "WHERE id = :id AND inventory >= :quantity AND stock_shards = 0 RETURNING inventory", nativeQuery = true)
+    Optional<Integer> decrementInventory(@Param("id") Long id, @Param("quantity") int quantity);
+
+    @Query("SELECT p.id FROM Product p WHERE p.stockShards > 0")
+    List<Long> findShardedIds();
+
+    interface ProductNameView {
+        Long getId();
+        String getName();
+        String getSlug();
+    }
 }
@@ -0,0 +1,41 @@
+package com.ecom.repository;
+
+import com.ecom.entity.Product;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Listing reads that select only the card columns (no description HTML, no
+ * collections) and resolve the primary image in the same statement.
+ */
+public interface ProductRepositoryCustom {
+
+    Page<ProductSummaryView> findSummaries(Specification<Product> spec, Pageable pageable);
+
+    /**
+     * Like {@link #findSummaries(Specification, Pageable)} but without the count
+     * query: reads one row past the page to tell whether another page exists.
+     */
+    Slice<ProductSummaryView> findSummarySlice(Specification<Product> spec, Pageable pageable);
+
+    List<ProductSummaryView> findSummaries(Specification<Product> spec, Sort sort, int limit);
+
+    record ProductSummaryView(
+            Long id,
+            String name,
+            String slug,
+            BigDecimal priceBefore,
+            BigDecimal priceAfter,
+            Integer inventory,
+            LocalDateTime createdAt,
+            String primaryImageUrl
+    ) {
+    }
+}
@@ -0,0 +1,94 @@
+package com.ecom.repository;
+
+import com.ecom.entity.Product;
+import com.ecom.entity.ProductImage;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.List;
+
+class ProductRepositoryImpl implements ProductRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<ProductSummaryView> findSummaries(Specification<Product> spec, Pageable pageable) {
+        List<ProductSummaryView> content = select(spec, pageable.getSort(), pageable.getOffset(), pageable.getPageSize());
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(spec));
+    }
+
+    @Override
+    public Slice<ProductSummaryView> findSummarySlice(Specification<Product> spec, Pageable pageable) {
+        List<ProductSummaryView> rows = select(spec, pageable.getSort(), pageable.getOffset(), pageable.getPageSize() + 1);
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        List<ProductSummaryView> content = hasNext ? rows.subList(0, pageable.getPageSize()) : rows;
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    @Override
+    public List<ProductSummaryView> findSummaries(Specification<Product> spec, Sort sort, int limit) {
+        return select(spec, sort, 0, limit);
+    }
+
+    private List<ProductSummaryView> select(Specification<Product> spec, Sort sort, long offset, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductSummaryView> query = cb.createQuery(ProductSummaryView.class);
+        Root<Product> root = query.from(Product.class);
+
+        Subquery<String> primaryImage = query.subquery(String.class);
+        Root<ProductImage> image = primaryImage.from(ProductImage.class);
+        primaryImage.select(cb.least(image.<String>get("imageUrl")))
+                .where(cb.equal(image.get("product"), root), cb.isTrue(image.get("isPrimary")));
+
+        query.select(cb.construct(ProductSummaryView.class,
+                root.get("id"),
+                root.get("name"),
+                root.get("slug"),
+                root.get("priceBefore"),
+                root.get("priceAfter"),
+                root.get("inventory"),
+                root.get("createdAt"),
+                primaryImage
+        ));
+
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        }
+
+        return entityManager.createQuery(query)
+                .setFirstResult((int) offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private long count(Specification<Product> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Product> root = query.from(Product.class);
+        query.select(cb.count(root));
+
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
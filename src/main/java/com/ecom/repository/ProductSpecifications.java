@@ -0,0 +1,160 @@
+package com.ecom.repository;
+
+import com.ecom.dto.ProductFilter;
+import com.ecom.entity.Category;
+import com.ecom.entity.Product;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Reusable {@link Specification} building blocks for catalog queries. Each
+ * factory returns a spec whose predicate is {@code null} when its argument is
+ * absent, so callers can chain them unconditionally.
+ */
+public final class ProductSpecifications {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private ProductSpecifications() {
+    }
+
+    /**
+     * All filters of a listing request as one specification. Searches without
+     * an explicit sort are ordered by relevance.
+     */
+    public static Specification<Product> matching(ProductFilter filter) {
+        Specification<Product> spec = Specification.where(filter.isActiveOnly() ? isActive() : null)
+                .and(inCategories(filter.getCategoryIds()))
+                .and(priceBetween(filter.getMinPrice(), filter.getMaxPrice()))
+                .and(filter.isInStockOnly() ? inStock() : null);
+        if (filter.hasSearch()) {
+            String tsQuery = toTsQuery(filter.getSearch());
+            spec = spec.and(tsQuery == null ? matchesNothing() : matchesSearch(tsQuery).and(rankedBy(tsQuery)));
+        }
+        return spec;
+    }
+
+    public static Specification<Product> isActive() {
+        return (root, query, cb) -> cb.isTrue(root.get("isActive"));
+    }
+
+    public static Specification<Product> hasId(Long id) {
+        return (root, query, cb) -> id == null ? null : cb.equal(root.get("id"), id);
+    }
+
+    /**
+     * Products in any of the given categories, as a correlated EXISTS so a
+     * product in several of them is still returned once.
+     */
+    public static Specification<Product> inCategories(Collection<Long> categoryIds) {
+        return (root, query, cb) -> {
+            if (categoryIds == null || categoryIds.isEmpty()) {
+                return null;
+            }
+            Subquery<Long> sub = query.subquery(Long.class);
+            Root<Product> product = sub.correlate(root);
+            Join<Product, Category> category = product.join("categories");
+            sub.select(category.get("id")).where(category.get("id").in(categoryIds));
+            return cb.exists(sub);
+        };
+    }
+
+    public static Specification<Product> priceBetween(BigDecimal min, BigDecimal max) {
+        return (root, query, cb) -> {
+            Path<BigDecimal> price = root.get("priceAfter");
+            if (min != null && max != null) {
+                return cb.between(price, min, max);
+            }
+            if (min != null) {
+                return cb.greaterThanOrEqualTo(price, min);
+            }
+            return max != null ? cb.lessThanOrEqualTo(price, max) : null;
+        };
+    }
+
+    public static Specification<Product> inStock() {
+        return (root, query, cb) -> cb.greaterThan(root.get("inventory"), 0);
+    }
+
+    /**
+     * Full-text match on the generated {@code search_vector} column through
+     * {@code product_search_matches} (see import.sql). The function is a plain
+     * SQL wrapper around {@code @@}, which PostgreSQL inlines, so the GIN index
+     * still applies.
+     */
+    public static Specification<Product> matchesSearch(String tsQuery) {
+        return (root, query, cb) -> cb.isTrue(cb.function(
+                "product_search_matches", Boolean.class, root.get("searchVector"), cb.literal(tsQuery)
+        ));
+    }
+
+    private static Specification<Product> matchesNothing() {
+        return (root, query, cb) -> cb.disjunction();
+    }
+
+    /**
+     * Orders by {@code ts_rank_cd} when the caller didn't sort. Count queries
+     * are left alone; Spring Data also strips their ORDER BY.
+     */
+    private static Specification<Product> rankedBy(String tsQuery) {
+        return (root, query, cb) -> {
+            if (query.getOrderList().isEmpty() && !Long.class.equals(query.getResultType())) {
+                Expression<Double> rank = cb.function(
+                        "product_search_rank", Double.class, root.get("searchVector"), cb.literal(tsQuery)
+                );
+                query.orderBy(cb.desc(rank), cb.desc(root.get("id")));
+            }
+            return null;
+        };
+    }
+
+    /**
+     * Keyset predicate: rows strictly after {@code (value, id)} in the given
+     * direction, with {@code id} breaking ties on equal sort values.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<Product> seekAfter(String property, Sort.Direction direction,
+                                                   Comparable value, Long id) {
+        return (root, query, cb) -> {
+            Path<Comparable> key = root.get(property);
+            Path<Long> pk = root.get("id");
+            if (direction.isAscending()) {
+                return cb.or(
+                        cb.greaterThan(key, value),
+                        cb.and(cb.equal(key, value), cb.greaterThan(pk, id))
+                );
+            }
+            return cb.or(
+                    cb.lessThan(key, value),
+                    cb.and(cb.equal(key, value), cb.lessThan(pk, id))
+            );
+        };
+    }
+
+    /**
+     * Every word must match, each as a prefix so partially typed words still
+     * hit ({@code "red sh"} becomes {@code red:* & sh:*}). Returns {@code null}
+     * when the input has no searchable characters.
+     */
+    static String toTsQuery(String search) {
+        List<String> terms = new ArrayList<>();
+        for (String token : NON_WORD.split(search.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                terms.add(token + ":*");
+            }
+        }
+        return terms.isEmpty() ? null : String.join(" & ", terms);
+    }
+}
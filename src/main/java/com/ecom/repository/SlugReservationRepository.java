@@ -0,0 +1,34 @@
+package com.ecom.repository;
+
+import com.ecom.entity.SlugReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SlugReservationRepository extends JpaRepository<SlugReservation, SlugReservation.Key> {
+
+    /**
+     * Reserved slugs equal to one of the comma-separated bases or starting with
+     * "base-". Slugs only hold [a-z0-9_-], so the byte range [base, base + ".")
+     * is exactly that set and each base is one range scan on idx_slug_reservation_prefix.
+     */
+    @Query(value = "SELECT r.slug FROM unnest(string_to_array(:bases, ',')) AS b(base) "
+            + "JOIN slug_reservations r ON r.scope = :scope "
+            + "AND r.slug ~>=~ b.base AND r.slug ~<~ (b.base || '.')", nativeQuery = true)
+    List<String> findTakenWithBases(@Param("scope") String scope, @Param("bases") String bases);
+
+    /** Claims the comma-separated slugs; returns the ones that were still free. */
+    @Query(value = "INSERT INTO slug_reservations (scope, slug) "
+            + "SELECT :scope, s FROM unnest(string_to_array(:slugs, ',')) AS s "
+            + "ON CONFLICT DO NOTHING RETURNING slug", nativeQuery = true)
+    List<String> reserveAll(@Param("scope") String scope, @Param("slugs") String slugs);
+
+    @Modifying
+    @Query("DELETE FROM SlugReservation r WHERE r.scope = :scope AND r.slug = :slug")
+    int release(@Param("scope") String scope, @Param("slug") String slug);
+}
@@ -36,6 +36,7 @@ public class SecurityConfig {
                                 "/api/auth/**",
                                 "/oauth2/**",
                                 "/api/images/**",
+                                "/api/cart/guest/**",
                                 "/v3/api-docs/**",
                                 "/swagger-ui/**"
                         ).permitAll()
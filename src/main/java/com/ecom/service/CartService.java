@@ -1,10 +1,21 @@
 package com.ecom.service;
 
 
+import com.ecom.dto.CartBatchRequest;
 import com.ecom.dto.CartItemRequest;
 import com.ecom.dto.CartResponse;
+import com.ecom.dto.CartSummaryResponse;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 
 public interface CartService {
     CartResponse addToCart(Long userId, CartItemRequest request);
+    CartResponse applyBatch(Long userId, List<CartBatchRequest.Operation> operations);
     CartResponse getCart(Long userId);
+    CartSummaryResponse getCartSummary(Long userId);
+    void repriceProduct(Long productId, BigDecimal oldPrice, BigDecimal newPrice);
+    void evictCartsWithProduct(Long productId);
+    void evictCartsWithProducts(Collection<Long> productIds);
 }
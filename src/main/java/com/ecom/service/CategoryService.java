@@ -3,10 +3,15 @@ package com.ecom.service;
 
 import com.ecom.dto.CategoryRequest;
 import com.ecom.dto.CategoryResponse;
+import com.ecom.dto.CategoryTreeResponse;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 public interface CategoryService {
     CategoryResponse createCategory(CategoryRequest request);
     List<CategoryResponse> getAllCategories();
+    List<CategoryTreeResponse> getCategoryTree();
+    Set<Long> resolveSubtreeIds(Collection<Long> categoryIds);
 }
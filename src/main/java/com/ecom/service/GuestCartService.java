@@ -0,0 +1,13 @@
+package com.ecom.service;
+
+
+import com.ecom.dto.CartItemRequest;
+import com.ecom.dto.CartResponse;
+import com.ecom.dto.GuestCartResponse;
+
+public interface GuestCartService {
+    GuestCartResponse addItem(String token, CartItemRequest request);
+    GuestCartResponse removeItem(String token, Long productId);
+    GuestCartResponse getCart(String token);
+    CartResponse mergeIntoUserCart(String token, Long userId);
+}
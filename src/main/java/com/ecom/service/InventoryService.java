@@ -0,0 +1,28 @@
+package com.ecom.service;
+
+import com.ecom.dto.InventoryHoldResponse;
+import com.ecom.dto.InventoryLedgerResponse;
+
+public interface InventoryService {
+
+    /** Takes the quantity out of stock for the hold TTL; fails rather than oversell. */
+    InventoryHoldResponse reserve(Long userId, Long productId, int quantity);
+
+    /** Turns a live hold into a sale: the stock is not returned. */
+    void confirm(Long userId, Long holdId);
+
+    /** Gives up a hold and returns its stock. */
+    void release(Long userId, Long holdId);
+
+    /** Returns the stock of expired holds; the number of units returned. */
+    long releaseExpired();
+
+    /** Evens out the shards of sharded products and refreshes their inventory totals. */
+    void rebalanceShards();
+
+    /** The product's ledger balance next to its live stock, with its latest movements. */
+    InventoryLedgerResponse getLedger(Long productId, int limit);
+
+    /** Folds ledger movements into snapshots; the number folded. */
+    long compactLedger();
+}
@@ -0,0 +1,10 @@
+package com.ecom.service;
+
+
+import java.io.OutputStream;
+
+public interface ProductExportService {
+
+    /** Writes every active product to {@code out} as NDJSON; returns how many were written. */
+    long exportActiveProducts(OutputStream out);
+}
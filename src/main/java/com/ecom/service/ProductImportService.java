@@ -0,0 +1,15 @@
+package com.ecom.service;
+
+
+import com.ecom.dto.ProductImportResponse;
+
+import java.io.InputStream;
+
+public interface ProductImportService {
+
+    ProductImportResponse importProducts(InputStream input, Format format);
+
+    enum Format {
+        CSV, NDJSON
+    }
+}
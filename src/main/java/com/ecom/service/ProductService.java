@@ -2,11 +2,18 @@ package com.ecom.service;
 
 
 import com.ecom.dto.ProductRequest;
+import com.ecom.dto.FacetCounts;
+import com.ecom.dto.InventoryBatchRequest;
+import com.ecom.dto.InventoryBatchResponse;
 import com.ecom.dto.PagedResponse;
+import com.ecom.dto.ProductFilter;
 import com.ecom.dto.ProductResponse;
+import com.ecom.dto.ProductSummaryResponse;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 public interface ProductService {
@@ -15,9 +22,17 @@ public interface ProductService {
 
     ProductResponse getProductBySlug(String slug);
 
-    PagedResponse<ProductResponse> getProducts(Pageable pageable, Long categoryId, String search);
+    PagedResponse<ProductSummaryResponse> getProducts(Pageable pageable, ProductFilter filter,
+                                                      PagedResponse.CountMode countMode);
+
+    PagedResponse<ProductSummaryResponse> getProductsAfter(String cursor, int size, Sort sort, ProductFilter filter);
+
+    FacetCounts getFacets(ProductFilter filter);
 
     ProductResponse updateInventory(Long productId, Integer inventory);
+    ProductResponse updateStockShards(Long productId, Integer shards);
+    InventoryBatchResponse updateInventories(List<InventoryBatchRequest.Update> updates);
+    ProductResponse updatePrice(Long productId, BigDecimal priceBefore, BigDecimal priceAfter);
 
     void deleteProduct(Long id);
 }
@@ -0,0 +1,19 @@
+package com.ecom.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ProductStreamService {
+
+    /** A server-sent event stream of stock and price changes for the given products. */
+    SseEmitter subscribe(Collection<Long> productIds);
+
+    /** Marks products as changed; subscribers hear about it once the current transaction commits. */
+    void productsChanged(Collection<Long> productIds);
+
+    default void productChanged(Long productId) {
+        productsChanged(List.of(productId));
+    }
+}
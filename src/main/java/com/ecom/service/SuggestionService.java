@@ -0,0 +1,19 @@
+package com.ecom.service;
+
+
+import com.ecom.dto.SuggestionResponse;
+import com.ecom.entity.Category;
+import com.ecom.entity.Product;
+
+public interface SuggestionService {
+
+    SuggestionResponse suggest(String query, int limit);
+
+    void recordProductView(String slug);
+
+    void productSaved(Product product);
+
+    void productDeleted(Product product);
+
+    void categorySaved(Category category);
+}
@@ -1,6 +1,7 @@
 package com.ecom.service.impl;
 
 
+import com.ecom.config.CacheNames;
 import com.ecom.dto.CartItemRequest;
 import com.ecom.dto.*;
 import com.ecom.entity.*;
@@ -9,8 +10,16 @@ import com.ecom.exception.ResourceNotFoundException;
 import com.ecom.repository.*;
 import com.ecom.service.CartService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.util.*;
@@ -18,102 +27,206 @@ import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 @Transactional
 public class CartServiceImpl implements CartService {
 
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
     private final ProductRepository productRepository;
-    private final UserRepository userRepository;
+    private final CacheManager cacheManager;
+    private final PlatformTransactionManager transactionManager;
 
+    @CachePut(cacheNames = CacheNames.CARTS, key = "#userId")
     @Override
     public CartResponse addToCart(Long userId, CartItemRequest request) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(
-                        () -> new ResourceNotFoundException("User", "id", userId)
-                );
+        Long productId = request.getProductId();
+        if (cartItemRepository.upsertQuantity(userId, productId, request.getQuantity()).isEmpty()) {
+            // Only the failure path pays for telling the two causes apart
+            if (!productRepository.existsById(productId)) {
+                throw new ResourceNotFoundException("Product", "id", productId);
+            }
+            throw new BadRequestException("Insufficient inventory for product");
+        }
 
-        Product product = productRepository.findById(request.getProductId())
-                .orElseThrow(
-                        () -> new ResourceNotFoundException("Product", "id", request.getProductId())
-                );
+        return readCart(userId);
+    }
 
-        if (product.getInventory() < request.getQuantity()) {
-            throw new BadRequestException("Insufficient inventory for product");
+    @CachePut(cacheNames = CacheNames.CARTS, key = "#userId")
+    @Override
+    public CartResponse applyBatch(Long userId, List<CartBatchRequest.Operation> operations) {
+        Set<Long> productIds = operations.stream()
+                .map(CartBatchRequest.Operation::getProductId)
+                .collect(Collectors.toSet());
+        // Share-locked like the single add, so a concurrent reprice can't slip between price read and total write
+        Map<Long, Product> products = productRepository.findAllByIdForShare(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, p -> p));
+        for (Long productId : productIds) {
+            if (!products.containsKey(productId)) {
+                throw new ResourceNotFoundException("Product", "id", productId);
+            }
         }
 
-        Cart cart = cartRepository.findByUserId(userId)
-                .orElseGet(() -> {
-                    Cart newCart = Cart.builder().user(user).build();
-                    return cartRepository.save(newCart);
-                });
-
-        CartItem cartItem = cartItemRepository
-                .findByCartIdAndProductId(cart.getId(), product.getId())
-                .orElse(
-                        CartItem.builder()
-                                .cart(cart)
-                                .product(product)
-                                .quantity(0)
-                                .build()
-                );
-
-        cartItem.setQuantity(cartItem.getQuantity() + request.getQuantity());
-        cartItemRepository.save(cartItem);
-
-        return mapToCartResponse(cart);
+        // Create-then-lock instead of find-or-save: a concurrent first add inserts the same user_id
+        cartRepository.insertIfAbsent(userId);
+        Cart cart = cartRepository.findByUserIdForUpdate(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Cart", "userId", userId));
+        Map<Long, CartItem> existing = cartItemRepository.findByCartId(cart.getId()).stream()
+                .collect(Collectors.toMap(item -> item.getProduct().getId(), item -> item));
+
+        // Replay the operations on quantities first; the database sees only the end state
+        Map<Long, Integer> quantities = new HashMap<>();
+        existing.forEach((productId, item) -> quantities.put(productId, item.getQuantity()));
+        for (CartBatchRequest.Operation op : operations) {
+            Long productId = op.getProductId();
+            switch (op.getType()) {
+                case ADD -> {
+                    if (op.getQuantity() == null || op.getQuantity() < 1) {
+                        throw new BadRequestException("ADD needs a quantity of at least 1");
+                    }
+                    quantities.merge(productId, op.getQuantity(), Integer::sum);
+                }
+                case SET -> {
+                    if (op.getQuantity() == null) {
+                        throw new BadRequestException("SET needs a quantity");
+                    }
+                    quantities.put(productId, op.getQuantity());
+                }
+                case REMOVE -> quantities.remove(productId);
+            }
+        }
+
+        List<Long> insufficient = productIds.stream()
+                .filter(id -> quantities.getOrDefault(id, 0) > products.get(id).getInventory())
+                .sorted()
+                .collect(Collectors.toList());
+        if (!insufficient.isEmpty()) {
+            throw new BadRequestException("Insufficient inventory for products " + insufficient);
+        }
+
+        List<CartItem> removed = new ArrayList<>();
+        List<CartItem> added = new ArrayList<>();
+        int itemsDelta = 0;
+        BigDecimal amountDelta = BigDecimal.ZERO;
+        for (Long productId : productIds) {
+            int quantity = quantities.getOrDefault(productId, 0);
+            CartItem item = existing.get(productId);
+            int change = quantity - (item != null ? item.getQuantity() : 0);
+            itemsDelta += change;
+            amountDelta = amountDelta.add(products.get(productId).getPriceAfter().multiply(BigDecimal.valueOf(change)));
+            if (quantity == 0) {
+                if (item != null) {
+                    removed.add(item);
+                }
+            } else if (item != null) {
+                item.setQuantity(quantity);
+            } else {
+                added.add(CartItem.builder()
+                        .cart(cart)
+                        .product(products.get(productId))
+                        .quantity(quantity)
+                        .build());
+            }
+        }
+        cartItemRepository.deleteAllInBatch(removed);
+        cartItemRepository.saveAll(added);
+        cart.setTotalItems(cart.getTotalItems() + itemsDelta);
+        cart.setTotalAmount(cart.getTotalAmount().add(amountDelta));
+
+        return readCart(userId);
     }
 
+    @Cacheable(cacheNames = CacheNames.CARTS, key = "#userId")
     @Transactional(readOnly = true)
     @Override
     public CartResponse getCart(Long userId) {
-        Cart cart = cartRepository.findByUserId(userId)
-                .orElseThrow(
-                        () -> new ResourceNotFoundException("Cart", "userId", userId)
-                );
-        return mapToCartResponse(cart);
+        return readCart(userId);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public CartSummaryResponse getCartSummary(Long userId) {
+        return cartRepository.findTotalsByUserId(userId)
+                .map(totals -> CartSummaryResponse.builder()
+                        .id(totals.getId())
+                        .totalItems(totals.getTotalItems())
+                        .totalAmount(totals.getTotalAmount())
+                        .build())
+                .orElseGet(() -> CartSummaryResponse.builder()
+                        .totalItems(0)
+                        .totalAmount(BigDecimal.ZERO)
+                        .build());
+    }
+
+    @Override
+    public void repriceProduct(Long productId, BigDecimal oldPrice, BigDecimal newPrice) {
+        if (oldPrice.compareTo(newPrice) != 0) {
+            cartRepository.repriceProduct(productId, oldPrice, newPrice);
+        }
+        evictCartsWithProduct(productId);
     }
 
-    private CartResponse mapToCartResponse(Cart cart) {
-        List<CartItemResponse> items = cart.getItems().stream()
-                .map(item -> {
-                    Product product = item.getProduct();
-                    String primaryImage = product.getImages().stream()
-                            .filter(ProductImage::getIsPrimary)
-                            .findFirst()
-                            .map(ProductImage::getImageUrl)
-                            .orElse(null);
-
-                    BigDecimal price = product.getPriceAfter();
-                    BigDecimal subtotal = price.multiply(BigDecimal.valueOf(item.getQuantity()));
-
-                    return CartItemResponse.builder()
-                            .id(item.getId())
-                            .productId(product.getId())
-                            .productName(product.getName())
-                            .productSlug(product.getSlug())
-                            .price(price)
-                            .quantity(item.getQuantity())
-                            .subtotal(subtotal)
-                            .primaryImageUrl(primaryImage)
-                            .build();
-                })
+    @Override
+    public void evictCartsWithProduct(Long productId) {
+        evictCartsWithProducts(List.of(productId));
+    }
+
+    @Override
+    public void evictCartsWithProducts(Collection<Long> productIds) {
+        Cache carts = cacheManager.getCache(CacheNames.CARTS);
+        if (carts != null && !productIds.isEmpty()) {
+            cartRepository.findUserIdsWithProducts(productIds).forEach(carts::evict);
+        }
+    }
+
+    private CartResponse readCart(Long userId) {
+        List<CartRepository.CartLineView> lines = cartRepository.findCartLines(userId);
+        if (lines.isEmpty()) {
+            throw new ResourceNotFoundException("Cart", "userId", userId);
+        }
+
+        List<CartItemResponse> items = lines.stream()
+                .filter(line -> line.getItemId() != null)
+                .map(line -> CartItemResponse.builder()
+                        .id(line.getItemId())
+                        .productId(line.getProductId())
+                        .productName(line.getProductName())
+                        .productSlug(line.getProductSlug())
+                        .price(line.getPrice())
+                        .quantity(line.getQuantity())
+                        .subtotal(line.getPrice().multiply(BigDecimal.valueOf(line.getQuantity())))
+                        .primaryImageUrl(line.getPrimaryImageUrl())
+                        .build())
                 .collect(Collectors.toList());
 
+        // One statement, so the lines and the stored totals come from the same snapshot
+        CartRepository.CartLineView cart = lines.get(0);
         BigDecimal totalAmount = items.stream()
                 .map(CartItemResponse::getSubtotal)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
-
         int totalItems = items.stream()
                 .mapToInt(CartItemResponse::getQuantity)
                 .sum();
+        if (totalItems != cart.getTotalItems() || totalAmount.compareTo(cart.getTotalAmount()) != 0) {
+            log.warn("Cart {} totals drifted ({} items, {} stored; {} items, {} from lines); recomputing",
+                    cart.getCartId(), cart.getTotalItems(), cart.getTotalAmount(), totalItems, totalAmount);
+            Long cartId = cart.getCartId();
+            AfterCommit.run(() -> repairTotals(cartId));
+        }
 
         return CartResponse.builder()
-                .id(cart.getId())
+                .id(cart.getCartId())
                 .items(items)
                 .totalAmount(totalAmount)
                 .totalItems(totalItems)
                 .build();
     }
-}
 
+    // Own transaction, as the cart may have been read in a read-only one that has already committed
+    private void repairTotals(Long cartId) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transaction.executeWithoutResult(status -> cartRepository.findByIdForUpdate(cartId)
+                .ifPresent(locked -> cartRepository.recomputeTotals(cartId)));
+    }
+}
@@ -2,18 +2,26 @@ package com.ecom.service.impl;
 
 
 
+import com.ecom.config.CacheNames;
 import com.ecom.dto.CategoryRequest;
 import com.ecom.dto.CategoryResponse;
+import com.ecom.dto.CategoryTreeResponse;
 import com.ecom.entity.Category;
 import com.ecom.exception.BadRequestException;
 import com.ecom.repository.CategoryRepository;
 import com.ecom.service.CategoryService;
-import com.ecom.security.SlugUtils;
+import com.ecom.service.SuggestionService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -21,19 +29,31 @@ import java.util.*;
 public class CategoryServiceImpl implements CategoryService {
 
     private final CategoryRepository categoryRepository;
-    private final SlugUtils slugUtils;
+    private final SlugAllocator slugAllocator;
+    private final SuggestionService suggestionService;
 
+    private volatile CategoryTree tree = CategoryTree.EMPTY;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadTree() {
+        // Parents are read from the materialized paths, the hierarchy SQL subtree queries use
+        tree = new CategoryTree(categoryRepository.findAllNodes().stream()
+                .map(c -> new CategoryTree.Entry(c.getId(), c.getName(), c.getSlug(), CategoryTree.parentId(c.getPath())))
+                .collect(Collectors.toList()));
+    }
+
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.CATALOG_RESPONSES, key = "'categories'"),
+            @CacheEvict(cacheNames = CacheNames.CATALOG_RESPONSES, key = "'categories:tree'")
+    })
     @Override
     public CategoryResponse createCategory(CategoryRequest request) {
         if (categoryRepository.existsByName(request.getName())) {
             throw new BadRequestException("Category name already exists");
         }
 
-        String slug = slugUtils.toSlug(request.getName());
-        long suffix = 1;
-        while (categoryRepository.existsBySlug(slug)) {
-            slug = slugUtils.generateUniqueSlug(request.getName(), suffix++);
-        }
+        String slug = slugAllocator.allocate(SlugAllocator.CATEGORIES, request.getName());
 
         Category parent = null;
         if (request.getParentId() != null) {
@@ -49,6 +69,17 @@ public class CategoryServiceImpl implements CategoryService {
                 .build();
 
         Category saved = categoryRepository.save(category);
+        // The id is only known once inserted; the path is written with the same flush
+        String parentPath = parent != null && parent.getPath() != null ? parent.getPath() : "/";
+        saved.setPath(parentPath + saved.getId() + "/");
+
+        // Published once committed, so a rolled-back create leaves no phantom node or suggestion
+        CategoryTree.Entry entry = new CategoryTree.Entry(saved.getId(), saved.getName(), saved.getSlug(),
+                parent != null ? parent.getId() : null);
+        AfterCommit.run(() -> {
+            suggestionService.categorySaved(saved);
+            addToTree(entry);
+        });
 
         return CategoryResponse.builder()
                 .id(saved.getId())
@@ -79,4 +110,21 @@ public class CategoryServiceImpl implements CategoryService {
         }
         return responses;
     }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    @Override
+    public List<CategoryTreeResponse> getCategoryTree() {
+        return tree.toResponse();
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    @Override
+    public Set<Long> resolveSubtreeIds(Collection<Long> categoryIds) {
+        return tree.subtreeIds(categoryIds);
+    }
+
+    // Serialized so concurrent creates can't drop each other's node
+    private synchronized void addToTree(CategoryTree.Entry entry) {
+        tree = tree.with(entry);
+    }
 }
@@ -0,0 +1,94 @@
+package com.ecom.service.impl;
+
+import com.ecom.dto.CategoryTreeResponse;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable snapshot of the category hierarchy. Replaced wholesale when a
+ * category is added, so readers never lock and subtree lookups never query.
+ */
+final class CategoryTree {
+
+    static final CategoryTree EMPTY = new CategoryTree(List.of());
+
+    private final Map<Long, Entry> entries;
+    private final Map<Long, List<Long>> childIds;
+    private final List<Long> rootIds;
+
+    CategoryTree(Collection<Entry> categories) {
+        Comparator<Entry> byName = Comparator.comparing(Entry::name, String.CASE_INSENSITIVE_ORDER);
+        List<Entry> sorted = categories.stream().sorted(byName).collect(Collectors.toList());
+
+        Map<Long, Entry> byId = new HashMap<>();
+        Map<Long, List<Long>> children = new HashMap<>();
+        List<Long> roots = new ArrayList<>();
+        for (Entry entry : sorted) {
+            byId.put(entry.id(), entry);
+        }
+        for (Entry entry : sorted) {
+            if (entry.parentId() == null || !byId.containsKey(entry.parentId())) {
+                roots.add(entry.id());
+            } else {
+                children.computeIfAbsent(entry.parentId(), key -> new ArrayList<>()).add(entry.id());
+            }
+        }
+
+        this.entries = Map.copyOf(byId);
+        this.childIds = children.entrySet().stream()
+                .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, e -> List.copyOf(e.getValue())));
+        this.rootIds = List.copyOf(roots);
+    }
+
+    /** The parent id recorded in a materialized path such as "/1/4/9/", or null for a root. */
+    static Long parentId(String path) {
+        if (path == null) {
+            return null;
+        }
+        String[] ids = path.split("/");
+        // Leading empty segment, then ancestors, then the category itself
+        return ids.length > 2 ? Long.valueOf(ids[ids.length - 2]) : null;
+    }
+
+    CategoryTree with(Entry entry) {
+        List<Entry> all = new ArrayList<>(entries.values());
+        all.add(entry);
+        return new CategoryTree(all);
+    }
+
+    /**
+     * The given categories plus all their descendants. Unknown ids are kept as
+     * they are so filtering on them behaves like an exact match.
+     */
+    Set<Long> subtreeIds(Collection<Long> ids) {
+        Set<Long> result = new HashSet<>();
+        Deque<Long> pending = new ArrayDeque<>(ids);
+        while (!pending.isEmpty()) {
+            Long id = pending.pop();
+            if (result.add(id)) {
+                pending.addAll(childIds.getOrDefault(id, List.of()));
+            }
+        }
+        return result;
+    }
+
+    List<CategoryTreeResponse> toResponse() {
+        return rootIds.stream().map(this::toResponse).collect(Collectors.toList());
+    }
+
+    private CategoryTreeResponse toResponse(Long id) {
+        Entry entry = entries.get(id);
+        return CategoryTreeResponse.builder()
+                .id(entry.id())
+                .name(entry.name())
+                .slug(entry.slug())
+                .children(childIds.getOrDefault(id, List.of()).stream()
+                        .map(this::toResponse)
+                        .collect(Collectors.toList()))
+                .build();
+    }
+
+    record Entry(Long id, String name, String slug, Long parentId) {
+    }
+}
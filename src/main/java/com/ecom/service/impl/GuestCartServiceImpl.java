@@ -0,0 +1,131 @@
+package com.ecom.service.impl;
+
+import com.ecom.dto.CartBatchRequest;
+import com.ecom.dto.CartItemRequest;
+import com.ecom.dto.CartItemResponse;
+import com.ecom.dto.CartResponse;
+import com.ecom.dto.GuestCartResponse;
+import com.ecom.exception.BadRequestException;
+import com.ecom.exception.ResourceNotFoundException;
+import com.ecom.repository.ProductRepository;
+import com.ecom.repository.ProductRepositoryCustom.ProductSummaryView;
+import com.ecom.repository.ProductSpecifications;
+import com.ecom.service.CartService;
+import com.ecom.service.GuestCartService;
+import com.ecom.service.impl.GuestCartStore.GuestCart;
+import com.ecom.service.impl.GuestCartStore.Line;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class GuestCartServiceImpl implements GuestCartService {
+
+    private final GuestCartStore guestCartStore;
+    private final ProductRepository productRepository;
+    private final CartService cartService;
+
+    @Transactional(readOnly = true)
+    @Override
+    public GuestCartResponse addItem(String token, CartItemRequest request) {
+        // The one database read on the guest path: current price, image and stock for the line
+        ProductSummaryView product = productRepository.findSummaries(
+                        ProductSpecifications.isActive().and(ProductSpecifications.hasId(request.getProductId())),
+                        Sort.unsorted(), 1)
+                .stream()
+                .findFirst()
+                .orElseThrow(() -> new ResourceNotFoundException("Product", "id", request.getProductId()));
+
+        GuestCart cart = token != null ? guestCartStore.find(token) : null;
+        if (cart == null) {
+            cart = guestCartStore.create();
+        }
+
+        synchronized (cart) {
+            int quantity = cart.quantityOf(product.id()) + request.getQuantity();
+            if (quantity > product.inventory()) {
+                throw new BadRequestException("Insufficient inventory for product");
+            }
+            cart.put(new Line(product.id(), product.name(), product.slug(), product.priceAfter(),
+                    product.primaryImageUrl(), quantity));
+        }
+        guestCartStore.changed(cart);
+        return mapToResponse(cart);
+    }
+
+    @Override
+    public GuestCartResponse removeItem(String token, Long productId) {
+        GuestCart cart = findCart(token);
+        if (cart.remove(productId)) {
+            guestCartStore.changed(cart);
+        }
+        return mapToResponse(cart);
+    }
+
+    @Override
+    public GuestCartResponse getCart(String token) {
+        return mapToResponse(findCart(token));
+    }
+
+    @Override
+    public CartResponse mergeIntoUserCart(String token, Long userId) {
+        GuestCart cart = findCart(token);
+        List<CartBatchRequest.Operation> operations = cart.lines().stream()
+                .map(line -> {
+                    CartBatchRequest.Operation op = new CartBatchRequest.Operation();
+                    op.setType(CartBatchRequest.Type.ADD);
+                    op.setProductId(line.productId());
+                    op.setQuantity(line.quantity());
+                    return op;
+                })
+                .collect(Collectors.toList());
+
+        // One transaction with a constant number of queries; the guest cart is kept if it fails
+        CartResponse merged = cartService.applyBatch(userId, operations);
+        guestCartStore.remove(token);
+        return merged;
+    }
+
+    private GuestCart findCart(String token) {
+        GuestCart cart = token != null ? guestCartStore.find(token) : null;
+        if (cart == null) {
+            throw new ResourceNotFoundException("Guest cart", "token", token);
+        }
+        return cart;
+    }
+
+    private GuestCartResponse mapToResponse(GuestCart cart) {
+        List<CartItemResponse> items = cart.lines().stream()
+                .map(line -> CartItemResponse.builder()
+                        .productId(line.productId())
+                        .productName(line.name())
+                        .productSlug(line.slug())
+                        .price(line.price())
+                        .quantity(line.quantity())
+                        .subtotal(line.price().multiply(BigDecimal.valueOf(line.quantity())))
+                        .primaryImageUrl(line.imageUrl())
+                        .build())
+                .collect(Collectors.toList());
+
+        BigDecimal totalAmount = items.stream()
+                .map(CartItemResponse::getSubtotal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        int totalItems = items.stream()
+                .mapToInt(CartItemResponse::getQuantity)
+                .sum();
+
+        return GuestCartResponse.builder()
+                .token(cart.token())
+                .items(items)
+                .totalAmount(totalAmount)
+                .totalItems(totalItems)
+                .build();
+    }
+}
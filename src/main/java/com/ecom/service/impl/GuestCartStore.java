@@ -0,0 +1,174 @@
+package com.ecom.service.impl;
+
+import com.ecom.repository.GuestCartRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Guest carts keyed by an opaque token. Reads and writes only touch memory;
+ * changed carts are upserted to guest_carts in one batch per flush interval,
+ * and a cart missing from memory (evicted, or after a restart) is reloaded
+ * from there on first use. Carts not modified for the idle timeout expire in
+ * both places.
+ */
+@Component
+@Slf4j
+class GuestCartStore {
+
+    private static final TypeReference<List<Line>> LINES = new TypeReference<>() {
+    };
+
+    private final GuestCartRepository guestCartRepository;
+    private final ObjectMapper objectMapper;
+    private final Duration idleTimeout;
+    private final Cache<String, GuestCart> carts;
+    // Strong references until flushed, so size eviction can't drop unsaved changes
+    private final Map<String, GuestCart> dirty = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+
+    GuestCartStore(GuestCartRepository guestCartRepository,
+                   ObjectMapper objectMapper,
+                   @Value("${app.cart.guest.max-carts}") long maxCarts,
+                   @Value("${app.cart.guest.idle-timeout}") Duration idleTimeout) {
+        this.guestCartRepository = guestCartRepository;
+        this.objectMapper = objectMapper;
+        this.idleTimeout = idleTimeout;
+        this.carts = Caffeine.newBuilder()
+                .maximumSize(maxCarts)
+                .expireAfterWrite(idleTimeout)
+                .build();
+    }
+
+    GuestCart create() {
+        byte[] bytes = new byte[24];
+        random.nextBytes(bytes);
+        GuestCart cart = new GuestCart(Base64.getUrlEncoder().withoutPadding().encodeToString(bytes), List.of());
+        carts.put(cart.token, cart);
+        return cart;
+    }
+
+    /** The cart for a token, or null if there is none in memory or storage. */
+    GuestCart find(String token) {
+        GuestCart cart = dirty.get(token);
+        if (cart != null) {
+            return cart;
+        }
+        return carts.get(token, key -> guestCartRepository.findItems(key)
+                .map(items -> new GuestCart(key, readLines(items)))
+                .orElse(null));
+    }
+
+    /** Call after changing a cart; re-putting restarts its idle timer. */
+    void changed(GuestCart cart) {
+        carts.put(cart.token, cart);
+        dirty.put(cart.token, cart);
+    }
+
+    void remove(String token) {
+        carts.invalidate(token);
+        dirty.remove(token);
+        guestCartRepository.delete(token);
+    }
+
+    @Scheduled(fixedDelayString = "${app.cart.guest.flush-interval}")
+    @PreDestroy
+    void flush() {
+        Map<String, String> batch = new HashMap<>();
+        for (String token : new ArrayList<>(dirty.keySet())) {
+            GuestCart cart = dirty.remove(token);
+            if (cart != null) {
+                // A change racing with this snapshot marks the cart dirty again for the next flush
+                batch.put(token, writeLines(cart.lines()));
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            guestCartRepository.upsertAll(batch);
+        } catch (RuntimeException ex) {
+            log.error("Could not write {} guest carts, will retry", batch.size(), ex);
+            batch.keySet().forEach(token -> {
+                GuestCart cart = carts.getIfPresent(token);
+                if (cart != null) {
+                    dirty.putIfAbsent(token, cart);
+                }
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "PT1H")
+    void purgeIdle() {
+        int purged = guestCartRepository.deleteNotUpdatedSince(LocalDateTime.now().minus(idleTimeout));
+        if (purged > 0) {
+            log.info("Purged {} idle guest carts", purged);
+        }
+    }
+
+    private List<Line> readLines(String json) {
+        try {
+            return objectMapper.readValue(json, LINES);
+        } catch (JsonProcessingException ex) {
+            log.warn("Discarding unreadable guest cart", ex);
+            return List.of();
+        }
+    }
+
+    private String writeLines(List<Line> lines) {
+        try {
+            return objectMapper.writeValueAsString(lines);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize guest cart", ex);
+        }
+    }
+
+    /** Product fields are captured when the line is added, so cart views need no database reads. */
+    record Line(Long productId, String name, String slug, BigDecimal price, String imageUrl, int quantity) {
+    }
+
+    static final class GuestCart {
+        private final String token;
+        private final Map<Long, Line> lines = new LinkedHashMap<>();
+
+        private GuestCart(String token, List<Line> lines) {
+            this.token = token;
+            lines.forEach(line -> this.lines.put(line.productId(), line));
+        }
+
+        String token() {
+            return token;
+        }
+
+        synchronized List<Line> lines() {
+            return List.copyOf(lines.values());
+        }
+
+        synchronized int quantityOf(Long productId) {
+            Line line = lines.get(productId);
+            return line != null ? line.quantity() : 0;
+        }
+
+        synchronized void put(Line line) {
+            lines.put(line.productId(), line);
+        }
+
+        synchronized boolean remove(Long productId) {
+            return lines.remove(productId) != null;
+        }
+    }
+}
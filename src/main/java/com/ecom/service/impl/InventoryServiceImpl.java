@@ -0,0 +1,299 @@
+package com.ecom.service.impl;
+
+import com.ecom.dto.InventoryHoldResponse;
+import com.ecom.dto.InventoryLedgerResponse;
+import com.ecom.entity.InventoryHold;
+import com.ecom.entity.InventoryMovement;
+import com.ecom.exception.BadRequestException;
+import com.ecom.exception.ResourceNotFoundException;
+import com.ecom.repository.InventoryHoldRepository;
+import com.ecom.repository.InventoryHoldRepository.ReturnedStock;
+import com.ecom.repository.InventoryLedgerRepository;
+import com.ecom.repository.InventoryLedgerRepository.Balance;
+import com.ecom.repository.InventoryLedgerRepository.Movement;
+import com.ecom.repository.InventoryShardRepository;
+import com.ecom.repository.InventoryShardRepository.ShardLevel;
+import com.ecom.repository.ProductInventoryRepository;
+import com.ecom.repository.ProductInventoryRepository.StockLevel;
+import com.ecom.repository.ProductRepository;
+import com.ecom.repository.UserRepository;
+import com.ecom.service.InventoryService;
+import com.ecom.service.ProductStreamService;
+import com.ecom.service.impl.StockCounters.Stock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Stock reservations. products.inventory is the stock still available to
+ * sell: a reservation takes units out with a conditional decrement and
+ * records a hold, which is either confirmed (the units are sold), released,
+ * or returned by the sweeper once it expires. Sharded products keep their
+ * available stock in inventory_shards instead, and a reservation takes it
+ * from one shard row, so buyers of a hot product only contend per shard.
+ * Every change is also appended to the inventory ledger in the same
+ * transaction, which is what explains a stock level after the fact. Once it
+ * commits, the product's cached detail pages are evicted and its facet stock
+ * state follows.
+ */
+@Service
+@Slf4j
+public class InventoryServiceImpl implements InventoryService {
+
+    private static final int SWEEP_BATCH_SIZE = 500;
+    private static final int COMPACTION_BATCH_SIZE = 10_000;
+    private static final int PRODUCT_ROW = -1;
+
+    private final ProductRepository productRepository;
+    private final InventoryHoldRepository inventoryHoldRepository;
+    private final InventoryShardRepository inventoryShardRepository;
+    private final InventoryLedgerRepository inventoryLedgerRepository;
+    private final ProductInventoryRepository productInventoryRepository;
+    private final UserRepository userRepository;
+    private final StockCounters stockCounters;
+    private final ProductStreamService productStreamService;
+    private final ProductFacetIndex productFacetIndex;
+    private final ProductDetailCaches productDetailCaches;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration holdTtl;
+
+    public InventoryServiceImpl(ProductRepository productRepository,
+                                InventoryHoldRepository inventoryHoldRepository,
+                                InventoryShardRepository inventoryShardRepository,
+                                InventoryLedgerRepository inventoryLedgerRepository,
+                                ProductInventoryRepository productInventoryRepository,
+                                UserRepository userRepository,
+                                StockCounters stockCounters,
+                                ProductStreamService productStreamService,
+                                ProductFacetIndex productFacetIndex,
+                                ProductDetailCaches productDetailCaches,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.inventory.hold-ttl}") Duration holdTtl) {
+        this.productRepository = productRepository;
+        this.inventoryHoldRepository = inventoryHoldRepository;
+        this.inventoryShardRepository = inventoryShardRepository;
+        this.inventoryLedgerRepository = inventoryLedgerRepository;
+        this.productInventoryRepository = productInventoryRepository;
+        this.userRepository = userRepository;
+        this.stockCounters = stockCounters;
+        this.productStreamService = productStreamService;
+        this.productFacetIndex = productFacetIndex;
+        this.productDetailCaches = productDetailCaches;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.holdTtl = holdTtl;
+    }
+
+    @Transactional
+    @Override
+    public InventoryHoldResponse reserve(Long userId, Long productId, int quantity) {
+        Stock stock = stockCounters.get(productId);
+        Taken taken = take(productId, stock, quantity);
+        if (taken == null) {
+            // Lost to other buyers, or the counter was stale (stock added elsewhere, product (un)sharded):
+            // one retry against fresh figures, which take() skips at once if they don't have enough either
+            taken = take(productId, stockCounters.reload(productId), quantity);
+            if (taken == null) {
+                throw new BadRequestException("Insufficient inventory for product");
+            }
+        }
+        int shard = taken.shard();
+
+        InventoryHold hold = inventoryHoldRepository.save(InventoryHold.builder()
+                .product(productRepository.getReferenceById(productId))
+                .user(userRepository.getReferenceById(userId))
+                .shard(shard == PRODUCT_ROW ? null : shard)
+                .quantity(quantity)
+                .expiresAt(LocalDateTime.now().plus(holdTtl))
+                .build());
+        inventoryLedgerRepository.append(List.of(
+                new Movement(productId, -quantity, InventoryMovement.Reason.RESERVATION, hold.getId())));
+        // Counted only once committed, so a rolled-back reservation can't leave the counter low
+        Integer heldShard = hold.getShard();
+        AfterCommit.run(() -> stockCounters.add(productId, heldShard, -quantity));
+        productDetailCaches.evict(stock.slug());
+        if (shard == PRODUCT_ROW && taken.left() == 0) {
+            // Sharded products leave the in-stock facet through the rebalancer, which sees all shards
+            AfterCommit.run(() -> productFacetIndex.setInStock(productId, false));
+        }
+        productStreamService.productChanged(productId);
+        return mapToResponse(hold, productId);
+    }
+
+    /** Takes the stock; returns where it came from and what is left there, or null if there wasn't enough. */
+    private Taken take(Long productId, Stock stock, int quantity) {
+        if (stock.available() < quantity) {
+            return null;
+        }
+        if (!stock.sharded()) {
+            return productRepository.decrementInventory(productId, quantity)
+                    .map(left -> new Taken(PRODUCT_ROW, left))
+                    .orElse(null);
+        }
+
+        int first = stock.firstShard();
+        for (int i = 0; i < stock.shards(); i++) {
+            int shard = (first + i) % stock.shards();
+            if (stock.available(shard) >= quantity) {
+                Optional<Integer> left = inventoryShardRepository.decrement(productId, shard, quantity);
+                if (left.isPresent()) {
+                    return new Taken(shard, left.get());
+                }
+            }
+        }
+        return takeAcrossShards(productId, quantity);
+    }
+
+    /** No single shard had enough: take from several while holding all of the product's shard locks. */
+    private Taken takeAcrossShards(Long productId, int quantity) {
+        int[] quantities = inventoryShardRepository.lockShards(productId);
+        if (Arrays.stream(quantities).sum() < quantity) {
+            return null;
+        }
+        int remaining = quantity;
+        for (int shard = 0; shard < quantities.length && remaining > 0; shard++) {
+            int taken = Math.min(quantities[shard], remaining);
+            quantities[shard] -= taken;
+            remaining -= taken;
+        }
+        inventoryShardRepository.update(productId, quantities);
+        AfterCommit.run(() -> {
+            for (int shard = 0; shard < quantities.length; shard++) {
+                stockCounters.set(productId, shard, quantities[shard]);
+            }
+        });
+        // Returned stock may go to any shard; the rebalancer evens them out again
+        return new Taken(0, quantities[0]);
+    }
+
+    @Transactional
+    @Override
+    public void confirm(Long userId, Long holdId) {
+        if (inventoryHoldRepository.confirm(holdId, userId, LocalDateTime.now()) == 0) {
+            // Expired holds are as good as gone; the sweeper returns their stock
+            throw new ResourceNotFoundException("Inventory hold", "id", holdId);
+        }
+    }
+
+    @Transactional
+    @Override
+    public void release(Long userId, Long holdId) {
+        ReturnedStock returned = inventoryHoldRepository.release(holdId, userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Inventory hold", "id", holdId));
+        AfterCommit.run(() ->
+                stockCounters.add(returned.getProductId(), returned.getShard(), returned.getQuantity()));
+        stockReturned(returned.getProductId());
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.sweep-interval}")
+    @Override
+    public long releaseExpired() {
+        long units = 0;
+        List<ReturnedStock> batch;
+        do {
+            // One short transaction per batch keeps product row locks brief during a large expiry wave
+            LocalDateTime now = LocalDateTime.now();
+            batch = transactionTemplate.execute(status -> {
+                List<ReturnedStock> returned = inventoryHoldRepository.releaseExpired(now, SWEEP_BATCH_SIZE);
+                returned.forEach(r -> stockReturned(r.getProductId()));
+                return returned;
+            });
+            for (ReturnedStock returned : batch) {
+                stockCounters.add(returned.getProductId(), returned.getShard(), returned.getQuantity());
+                units += returned.getQuantity();
+            }
+        } while (!batch.isEmpty());
+
+        if (units > 0) {
+            log.info("Returned {} units from expired inventory holds", units);
+        }
+        return units;
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.shard-rebalance-interval}")
+    @Override
+    public void rebalanceShards() {
+        List<Long> productIds = productRepository.findShardedIds();
+        if (productIds.isEmpty()) {
+            return;
+        }
+        List<ShardLevel> levels = transactionTemplate.execute(status ->
+                inventoryShardRepository.rebalance(productIds));
+        levels.forEach(level -> stockCounters.set(level.productId(), level.shard(), level.quantity()));
+        // Reservations can't tell when the last shard empties, so the in-stock facet is settled here
+        productInventoryRepository.findStockLevels(productIds)
+                .forEach(level -> productFacetIndex.updateStock(level.productId(), level.inventory()));
+    }
+
+    /** Stock came back to the product, so it is in stock whatever it was before. */
+    private void stockReturned(Long productId) {
+        productDetailCaches.evict(stockCounters.get(productId).slug());
+        AfterCommit.run(() -> productFacetIndex.setInStock(productId, true));
+        productStreamService.productChanged(productId);
+    }
+
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    @Override
+    public InventoryLedgerResponse getLedger(Long productId, int limit) {
+        // One database snapshot for all three reads, so the two balances are comparable
+        StockLevel live = productInventoryRepository.findStockLevels(List.of(productId)).stream()
+                .findFirst()
+                .orElseThrow(() -> new ResourceNotFoundException("Product", "id", productId));
+        Balance balance = inventoryLedgerRepository.findBalance(productId);
+        List<InventoryLedgerResponse.Movement> movements = inventoryLedgerRepository.findRecent(productId, limit)
+                .stream()
+                .map(movement -> InventoryLedgerResponse.Movement.builder()
+                        .id(movement.id())
+                        .delta(movement.delta())
+                        .reason(movement.reason())
+                        .referenceId(movement.referenceId())
+                        .createdAt(movement.createdAt())
+                        .build())
+                .collect(Collectors.toList());
+
+        return InventoryLedgerResponse.builder()
+                .productId(productId)
+                .stock(balance.stock())
+                .inventory(live.inventory())
+                .snapshotQuantity(balance.snapshotQuantity())
+                .snapshotAt(balance.snapshotAt())
+                .pendingMovements(balance.pendingMovements())
+                .movements(movements)
+                .build();
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.ledger.compaction-interval}")
+    @Override
+    public long compactLedger() {
+        long folded = 0;
+        int batch;
+        do {
+            batch = transactionTemplate.execute(status -> inventoryLedgerRepository.compact(COMPACTION_BATCH_SIZE));
+            folded += batch;
+        } while (batch == COMPACTION_BATCH_SIZE);
+        return folded;
+    }
+
+    private record Taken(int shard, int left) {
+    }
+
+    private InventoryHoldResponse mapToResponse(InventoryHold hold, Long productId) {
+        return InventoryHoldResponse.builder()
+                .id(hold.getId())
+                .productId(productId)
+                .quantity(hold.getQuantity())
+                .expiresAt(hold.getExpiresAt())
+                .build();
+    }
+}
@@ -0,0 +1,49 @@
+package com.ecom.service.impl;
+
+import com.ecom.dto.ProductFilter;
+import com.ecom.repository.ProductRepository;
+import com.ecom.repository.ProductSpecifications;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Approximate listing totals per filter combination. Entries are served stale
+ * once older than the refresh interval while a count query reloads them on the
+ * async executor, so listing requests never wait on COUNT(*) after the first
+ * hit for a filter.
+ */
+@Component
+class ProductCountCache {
+
+    private final ProductRepository productRepository;
+    private final LoadingCache<ProductFilter, Long> counts;
+
+    ProductCountCache(ProductRepository productRepository,
+                      @Qualifier("taskExecutor") Executor taskExecutor) {
+        this.productRepository = productRepository;
+        this.counts = Caffeine.newBuilder()
+                .maximumSize(1_000)
+                .refreshAfterWrite(Duration.ofMinutes(1))
+                .expireAfterAccess(Duration.ofMinutes(30))
+                .executor(taskExecutor)
+                .build(this::count);
+    }
+
+    long get(ProductFilter filter) {
+        // toBuilder() is shallow, so the category set is copied too; otherwise a
+        // caller mutating its set afterwards would change a key already in the map
+        return counts.get(filter.toBuilder()
+                .categoryIds(filter.getCategoryIds() == null ? null : Set.copyOf(filter.getCategoryIds()))
+                .build());
+    }
+
+    private Long count(ProductFilter filter) {
+        return productRepository.count(ProductSpecifications.matching(filter));
+    }
+}
@@ -0,0 +1,71 @@
+package com.ecom.service.impl;
+
+import com.ecom.repository.ProductRepositoryCustom.ProductSummaryView;
+import com.ecom.exception.BadRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Set;
+
+/**
+ * Opaque keyset cursor for the product catalog. Carries the sort it was
+ * issued for plus the sort value and id of the last row already returned.
+ */
+@Getter
+@AllArgsConstructor
+class ProductCursor {
+
+    static final Set<String> SORTABLE_PROPERTIES = Set.of("createdAt", "priceAfter", "name");
+
+    private final String property;
+    private final Sort.Direction direction;
+    private final Comparable<?> value;
+    private final Long id;
+
+    static ProductCursor of(Sort.Order order, ProductSummaryView last) {
+        Comparable<?> value = switch (order.getProperty()) {
+            case "createdAt" -> last.createdAt();
+            case "priceAfter" -> last.priceAfter();
+            case "name" -> last.name();
+            default -> throw new BadRequestException("Unsupported cursor sort: " + order.getProperty());
+        };
+        return new ProductCursor(order.getProperty(), order.getDirection(), value, last.id());
+    }
+
+    static ProductCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 4);
+            if (parts.length != 4) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            String property = parts[0];
+            Comparable<?> value = switch (property) {
+                case "createdAt" -> LocalDateTime.parse(parts[3]);
+                case "priceAfter" -> new BigDecimal(parts[3]);
+                case "name" -> parts[3];
+                default -> throw new BadRequestException("Invalid cursor");
+            };
+            return new ProductCursor(property, Sort.Direction.valueOf(parts[1]), value, Long.valueOf(parts[2]));
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    boolean matches(Sort.Order order) {
+        return property.equals(order.getProperty()) && direction == order.getDirection();
+    }
+
+    String encode() {
+        String raw = property + "|" + direction.name() + "|" + id + "|"
+                + (value instanceof BigDecimal price ? price.toPlainString() : value.toString());
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
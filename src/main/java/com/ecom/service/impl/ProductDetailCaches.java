@@ -0,0 +1,30 @@
+package com.ecom.service.impl;
+
+import com.ecom.config.CacheNames;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+/**
+ * The two slug-keyed copies of a product detail page: the mapped response and
+ * its serialized body. Called inside a transaction, the eviction is applied
+ * on commit (see {@code CacheConfig}).
+ */
+@Component
+@RequiredArgsConstructor
+class ProductDetailCaches {
+
+    private final CacheManager cacheManager;
+
+    void evict(String slug) {
+        Cache products = cacheManager.getCache(CacheNames.PRODUCTS);
+        if (products != null) {
+            products.evict(slug);
+        }
+        Cache responses = cacheManager.getCache(CacheNames.CATALOG_RESPONSES);
+        if (responses != null) {
+            responses.evict("product:" + slug);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.ecom.service.impl;
+
+import com.ecom.dto.FacetCounts;
+import com.ecom.dto.ProductFilter;
+import com.ecom.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Compressed bitmaps of active product ids per category, price band and stock
+ * state. Facet counts for a listing are bitmap intersections, so they never
+ * hit the database. Each dimension is counted with the other dimensions'
+ * filters applied, which is what a facet sidebar shows.
+ *
+ * <p>Price filters are resolved to whole bands, so counts are exact only when
+ * minPrice/maxPrice fall on band edges. Search text can't be expressed here and
+ * is ignored by the caller.
+ */
+@Component
+@Slf4j
+class ProductFacetIndex {
+
+    private final ProductRepository productRepository;
+    // Ascending upper edges; band i covers [edge[i-1], edge[i]), the last band is open-ended
+    private final BigDecimal[] bandEdges;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private RoaringBitmap active = new RoaringBitmap();
+    private RoaringBitmap inStock = new RoaringBitmap();
+    private RoaringBitmap[] priceBands;
+    private Map<Long, RoaringBitmap> categories = new HashMap<>();
+
+    ProductFacetIndex(ProductRepository productRepository,
+                      @Value("${app.catalog.facet-price-bands}") BigDecimal[] bandEdges) {
+        this.productRepository = productRepository;
+        this.bandEdges = bandEdges.clone();
+        Arrays.sort(this.bandEdges);
+        this.priceBands = newBands();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        RoaringBitmap newActive = new RoaringBitmap();
+        RoaringBitmap newInStock = new RoaringBitmap();
+        RoaringBitmap[] newBands = newBands();
+        Map<Long, RoaringBitmap> newCategories = new HashMap<>();
+
+        try (Stream<Object[]> rows = productRepository.streamActiveFacetRows()) {
+            rows.forEach(row -> {
+                int id = toIntId((Long) row[0]);
+                newActive.add(id);
+                newBands[bandOf((BigDecimal) row[1])].add(id);
+                if ((Integer) row[2] > 0) {
+                    newInStock.add(id);
+                }
+            });
+        }
+        try (Stream<Object[]> links = productRepository.streamActiveCategoryLinks()) {
+            links.forEach(link -> newCategories
+                    .computeIfAbsent((Long) link[1], key -> new RoaringBitmap())
+                    .add(toIntId((Long) link[0])));
+        }
+        newCategories.values().forEach(RoaringBitmap::runOptimize);
+
+        lock.writeLock().lock();
+        try {
+            active = newActive;
+            inStock = newInStock;
+            priceBands = newBands;
+            categories = newCategories;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Facet index built over {} active products", newActive.getCardinality());
+    }
+
+    void put(Long productId, BigDecimal price, int inventory, boolean isActive, Collection<Long> categoryIds) {
+        int id = toIntId(productId);
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            if (!isActive) {
+                return;
+            }
+            active.add(id);
+            priceBands[bandOf(price)].add(id);
+            if (inventory > 0) {
+                inStock.add(id);
+            }
+            for (Long categoryId : categoryIds) {
+                categories.computeIfAbsent(categoryId, key -> new RoaringBitmap()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void updateStock(Long productId, int inventory) {
+        setInStock(productId, inventory > 0);
+    }
+
+    void setInStock(Long productId, boolean available) {
+        int id = toIntId(productId);
+        lock.writeLock().lock();
+        try {
+            if (available && active.contains(id)) {
+                inStock.add(id);
+            } else {
+                inStock.remove(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(Long productId) {
+        int id = toIntId(productId);
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    FacetCounts count(ProductFilter filter) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap byCategory = null;
+            if (filter.getCategoryIds() != null && !filter.getCategoryIds().isEmpty()) {
+                byCategory = RoaringBitmap.or(filter.getCategoryIds().stream()
+                        .map(categories::get)
+                        .filter(Objects::nonNull)
+                        .iterator());
+            }
+            RoaringBitmap byPrice = null;
+            if (filter.getMinPrice() != null || filter.getMaxPrice() != null) {
+                byPrice = new RoaringBitmap();
+                for (int band = 0; band < priceBands.length; band++) {
+                    if (overlaps(band, filter.getMinPrice(), filter.getMaxPrice())) {
+                        byPrice.or(priceBands[band]);
+                    }
+                }
+            }
+            RoaringBitmap byStock = filter.isInStockOnly() ? inStock : null;
+
+            RoaringBitmap categoryBase = intersect(byPrice, byStock);
+            Map<Long, Long> categoryCounts = new LinkedHashMap<>();
+            categories.forEach((categoryId, bitmap) -> {
+                long count = RoaringBitmap.andCardinality(categoryBase, bitmap);
+                if (count > 0) {
+                    categoryCounts.put(categoryId, count);
+                }
+            });
+
+            RoaringBitmap priceBase = intersect(byCategory, byStock);
+            List<FacetCounts.PriceBand> bandCounts = new ArrayList<>(priceBands.length);
+            for (int band = 0; band < priceBands.length; band++) {
+                bandCounts.add(FacetCounts.PriceBand.builder()
+                        .min(band == 0 ? BigDecimal.ZERO : bandEdges[band - 1])
+                        .max(band < bandEdges.length ? bandEdges[band] : null)
+                        .count(RoaringBitmap.andCardinality(priceBase, priceBands[band]))
+                        .build());
+            }
+
+            RoaringBitmap stockBase = intersect(byCategory, byPrice);
+            return FacetCounts.builder()
+                    .categories(categoryCounts)
+                    .priceBands(bandCounts)
+                    .inStock(RoaringBitmap.andCardinality(stockBase, inStock))
+                    .total(byStock != null
+                            ? RoaringBitmap.andCardinality(stockBase, byStock)
+                            : stockBase.getLongCardinality())
+                    .build();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeLocked(int id) {
+        active.remove(id);
+        inStock.remove(id);
+        for (RoaringBitmap band : priceBands) {
+            band.remove(id);
+        }
+        categories.values().removeIf(bitmap -> {
+            bitmap.remove(id);
+            return bitmap.isEmpty();
+        });
+    }
+
+    private RoaringBitmap intersect(RoaringBitmap first, RoaringBitmap second) {
+        RoaringBitmap result = active;
+        if (first != null) {
+            result = RoaringBitmap.and(result, first);
+        }
+        if (second != null) {
+            result = RoaringBitmap.and(result, second);
+        }
+        return result;
+    }
+
+    private boolean overlaps(int band, BigDecimal min, BigDecimal max) {
+        BigDecimal lower = band == 0 ? BigDecimal.ZERO : bandEdges[band - 1];
+        BigDecimal upper = band < bandEdges.length ? bandEdges[band] : null;
+        return (max == null || lower.compareTo(max) <= 0)
+                && (min == null || upper == null || upper.compareTo(min) > 0);
+    }
+
+    private int bandOf(BigDecimal price) {
+        for (int band = 0; band < bandEdges.length; band++) {
+            if (price.compareTo(bandEdges[band]) < 0) {
+                return band;
+            }
+        }
+        return bandEdges.length;
+    }
+
+    private RoaringBitmap[] newBands() {
+        RoaringBitmap[] bands = new RoaringBitmap[bandEdges.length + 1];
+        for (int band = 0; band < bands.length; band++) {
+            bands[band] = new RoaringBitmap();
+        }
+        return bands;
+    }
+
+    private static int toIntId(Long id) {
+        return Math.toIntExact(id);
+    }
+}
@@ -0,0 +1,255 @@
+package com.ecom.service.impl;
+
+import com.ecom.dto.ProductImportResponse;
+import com.ecom.dto.ProductImportRow;
+import com.ecom.entity.Category;
+import com.ecom.entity.Product;
+import com.ecom.exception.BadRequestException;
+import com.ecom.repository.CategoryRepository;
+import com.ecom.repository.ProductImportRepository;
+import com.ecom.repository.ProductImportRepository.ImportedProduct;
+import com.ecom.repository.ProductImportRepository.StagedProduct;
+import com.ecom.security.HtmlSanitizerUtils;
+import com.ecom.service.ProductImportService;
+import com.ecom.service.SuggestionService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk catalog import. The feed is read as a stream in chunks; each chunk is
+ * validated, sanitized in parallel, given slugs in one allocation and COPYed
+ * into a staging table. A single set-based merge then inserts everything, so
+ * the database sees a handful of statements per chunk instead of per product.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductImportServiceImpl implements ProductImportService {
+
+    private static final int CHUNK_SIZE = 5_000;
+    private static final int MAX_REPORTED_ERRORS = 1_000;
+
+    private static final CsvMapper CSV_MAPPER = CsvMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    private final ProductImportRepository productImportRepository;
+    private final CategoryRepository categoryRepository;
+    private final SlugAllocator slugAllocator;
+    private final HtmlSanitizerUtils htmlSanitizerUtils;
+    private final ProductFacetIndex productFacetIndex;
+    private final SuggestionService suggestionService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final PlatformTransactionManager transactionManager;
+
+    @Override
+    public ProductImportResponse importProducts(InputStream input, Format format) {
+        ImportReport report = new ImportReport();
+        List<ImportedProduct> imported = new TransactionTemplate(transactionManager)
+                .execute(status -> load(input, format, report));
+
+        // Only after commit, so the in-memory indexes never list rolled-back rows
+        for (ImportedProduct product : imported) {
+            productFacetIndex.put(product.id(), product.priceAfter(), product.inventory(), true,
+                    product.categoryIds());
+            suggestionService.productSaved(toProduct(product));
+        }
+
+        log.info("Imported {} of {} products ({} rejected)", imported.size(), report.received, report.failed);
+        return ProductImportResponse.builder()
+                .received(report.received)
+                .imported(imported.size())
+                .failed(report.failed)
+                .errors(report.errors)
+                .build();
+    }
+
+    private List<ImportedProduct> load(InputStream input, Format format, ImportReport report) {
+        Set<Long> categoryIds = categoryRepository.findAllIds();
+        productImportRepository.createStagingTable();
+
+        try {
+            RecordReader records = new RecordReader(input, format == Format.CSV);
+            ObjectReader reader = format == Format.CSV ? csvReader(records.next()) : objectMapper
+                    .readerFor(ProductImportRow.class)
+                    .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+            List<NumberedRow> chunk = new ArrayList<>(CHUNK_SIZE);
+            String record;
+            while ((record = records.next()) != null) {
+                long rowNumber = ++report.received;
+                ProductImportRow row;
+                try {
+                    row = reader.readValue(record);
+                } catch (JsonProcessingException ex) {
+                    report.reject(rowNumber, ex.getOriginalMessage());
+                    continue;
+                }
+                if (row == null) {
+                    report.reject(rowNumber, "Record is empty");
+                    continue;
+                }
+
+                String error = validate(row, categoryIds);
+                if (error != null) {
+                    report.reject(rowNumber, error);
+                    continue;
+                }
+
+                chunk.add(new NumberedRow(rowNumber, row));
+                if (chunk.size() == CHUNK_SIZE) {
+                    stage(chunk);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                stage(chunk);
+            }
+        } catch (IOException ex) {
+            throw new BadRequestException("Malformed import file near row " + report.received + ": "
+                    + ex.getMessage());
+        }
+
+        return productImportRepository.mergeStaging();
+    }
+
+    private void stage(List<NumberedRow> chunk) {
+        // Jsoup cleaning dominates the CPU cost of an import
+        List<String> descriptions = chunk.parallelStream()
+                .map(r -> htmlSanitizerUtils.sanitizeQuillHtml(r.row().getDescriptionHtml()))
+                .collect(Collectors.toList());
+        List<String> slugs = slugAllocator.allocateAll(SlugAllocator.PRODUCTS, chunk.stream()
+                .map(r -> r.row().getName())
+                .collect(Collectors.toList()));
+
+        List<StagedProduct> staged = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            ProductImportRow row = chunk.get(i).row();
+            staged.add(new StagedProduct(
+                    chunk.get(i).rowNumber(),
+                    row.getName(),
+                    slugs.get(i),
+                    row.getPriceBefore(),
+                    row.getPriceAfter(),
+                    row.getInventory(),
+                    descriptions.get(i),
+                    row.getCategoryIds() != null ? new LinkedHashSet<>(row.getCategoryIds()) : Set.of()
+            ));
+        }
+        productImportRepository.copyToStaging(staged);
+    }
+
+    // Records are parsed one by one against the columns named by the header record
+    private ObjectReader csvReader(String header) throws IOException {
+        CsvSchema.Builder schema = CsvSchema.builder().setArrayElementSeparator("|");
+        if (header != null) {
+            String[] columns = CSV_MAPPER.readerFor(String[].class)
+                    .with(CsvParser.Feature.WRAP_AS_ARRAY)
+                    .readValue(header);
+            for (String column : columns) {
+                schema.addColumn(column.trim());
+            }
+        }
+        return CSV_MAPPER.readerFor(ProductImportRow.class).with(schema.build());
+    }
+
+    private String validate(ProductImportRow row, Set<Long> categoryIds) {
+        Set<ConstraintViolation<ProductImportRow>> violations = validator.validate(row);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        if (row.getCategoryIds() != null) {
+            for (Long categoryId : row.getCategoryIds()) {
+                if (categoryId == null || !categoryIds.contains(categoryId)) {
+                    return "Unknown category id: " + categoryId;
+                }
+            }
+        }
+        return null;
+    }
+
+    private Product toProduct(ImportedProduct imported) {
+        return Product.builder()
+                .id(imported.id())
+                .name(imported.name())
+                .slug(imported.slug())
+                .categories(imported.categoryIds().stream()
+                        .map(id -> Category.builder().id(id).build())
+                        .collect(Collectors.toSet()))
+                .build();
+    }
+
+    private record NumberedRow(long rowNumber, ProductImportRow row) {
+    }
+
+    /**
+     * Splits a feed into records before parsing, so a malformed record is
+     * rejected on its own rather than derailing the parser for the rest of
+     * the feed. A CSV record ends at a newline outside double quotes, an
+     * NDJSON record at any newline. Blank records are skipped.
+     */
+    private static final class RecordReader {
+        private final Reader reader;
+        private final boolean csv;
+        private final StringBuilder record = new StringBuilder(512);
+
+        RecordReader(InputStream input, boolean csv) {
+            this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 64 * 1024);
+            this.csv = csv;
+        }
+
+        /** The next record without its line break, or null at the end of the feed. */
+        String next() throws IOException {
+            int c = 0;
+            while (c != -1) {
+                record.setLength(0);
+                boolean quoted = false;
+                while ((c = reader.read()) != -1 && (c != '\n' || quoted)) {
+                    if (c == '"' && csv) {
+                        quoted = !quoted;
+                    }
+                    record.append((char) c);
+                }
+                if (!record.toString().isBlank()) {
+                    // Leaves the CR of a CRLF line break to the CSV parser, which treats it as part of the break
+                    return record.toString();
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class ImportReport {
+        private long received;
+        private long failed;
+        private final List<ProductImportResponse.RowError> errors = new ArrayList<>();
+
+        void reject(long row, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(ProductImportResponse.RowError.builder().row(row).message(message).build());
+            }
+        }
+    }
+}
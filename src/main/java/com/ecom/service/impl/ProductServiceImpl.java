@@ -1,21 +1,37 @@
 package com.ecom.service.impl;
 
 
+import com.ecom.config.CacheNames;
 import com.ecom.dto.ProductRequest;
 import com.ecom.dto.*;
 import com.ecom.entity.*;
+import com.ecom.exception.BadRequestException;
 import com.ecom.exception.ResourceNotFoundException;
 import com.ecom.repository.*;
+import com.ecom.repository.InventoryLedgerRepository.Movement;
+import com.ecom.repository.ProductInventoryRepository.InventoryWrite;
+import com.ecom.repository.ProductInventoryRepository.LockedProduct;
+import com.ecom.repository.ProductRepositoryCustom.ProductSummaryView;
+import com.ecom.service.CartService;
 import com.ecom.service.ProductService;
+import com.ecom.service.ProductStreamService;
+import com.ecom.service.SuggestionService;
 import com.ecom.security.HtmlSanitizerUtils;
-import com.ecom.security.SlugUtils;
 import com.ecom.security.FileUploadUtils;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.*;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.math.BigDecimal;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -24,20 +40,32 @@ import java.util.stream.Collectors;
 @Transactional
 public class ProductServiceImpl implements ProductService {
 
+    private static final int MAX_STOCK_SHARDS = 64;
+
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
-    private final SlugUtils slugUtils;
     private final HtmlSanitizerUtils htmlSanitizerUtils;
     private final FileUploadUtils fileUploadUtils;
+    private final ProductDetailCaches productDetailCaches;
+    private final ProductCountCache productCountCache;
+    private final SuggestionService suggestionService;
+    private final ProductFacetIndex productFacetIndex;
+    private final SlugAllocator slugAllocator;
+    private final CartService cartService;
+    private final InventoryHoldRepository inventoryHoldRepository;
+    private final InventoryShardRepository inventoryShardRepository;
+    private final ProductInventoryRepository productInventoryRepository;
+    private final InventoryLedgerRepository inventoryLedgerRepository;
+    private final ProductStreamService productStreamService;
+    private final StockCounters stockCounters;
 
+    @Caching(
+            put = @CachePut(cacheNames = CacheNames.PRODUCTS, key = "#result.slug"),
+            evict = @CacheEvict(cacheNames = CacheNames.CATALOG_RESPONSES, key = "'product:' + #result.slug")
+    )
     @Override
     public ProductResponse createProduct(ProductRequest request, List<MultipartFile> images) {
-        String baseSlug = slugUtils.toSlug(request.getName());
-        String slug = baseSlug;
-        long suffix = 1;
-        while (productRepository.existsBySlug(slug)) {
-            slug = slugUtils.generateUniqueSlug(baseSlug, suffix++);
-        }
+        String slug = slugAllocator.allocate(SlugAllocator.PRODUCTS, request.getName());
 
         Set<Category> categories = new HashSet<>();
         if (request.getCategoryIds() != null && !request.getCategoryIds().isEmpty()) {
@@ -59,6 +87,9 @@ public class ProductServiceImpl implements ProductService {
                 .build();
 
         Product saved = productRepository.save(product);
+        // Opening balance of the product's ledger
+        inventoryLedgerRepository.append(List.of(new Movement(saved.getId(), saved.getInventory(),
+                InventoryMovement.Reason.RESTOCK, null)));
 
         if (images != null && !images.isEmpty()) {
             int order = 0;
@@ -74,9 +105,18 @@ public class ProductServiceImpl implements ProductService {
             }
         }
 
+        List<Long> categoryIds = categories.stream().map(Category::getId).collect(Collectors.toList());
+        AfterCommit.run(() -> {
+            suggestionService.productSaved(saved);
+            productFacetIndex.put(saved.getId(), saved.getPriceAfter(), saved.getInventory(), saved.getIsActive(),
+                    categoryIds);
+        });
+        // Adding images may bump the version; the response must match what is stored
+        productRepository.flush();
         return mapToProductResponse(saved);
     }
 
+    @Cacheable(cacheNames = CacheNames.PRODUCTS, key = "#slug")
     @Transactional(readOnly = true)
     @Override
     public ProductResponse getProductBySlug(String slug) {
@@ -87,39 +127,303 @@ public class ProductServiceImpl implements ProductService {
 
     @Transactional(readOnly = true)
     @Override
-    public PagedResponse<ProductResponse> getProducts(Pageable pageable, Long categoryId, String search) {
-        Page<Product> page;
-        if (categoryId != null) {
-            page = productRepository.findByCategoryIdAndActive(categoryId, pageable);
-        } else if (search != null && !search.isBlank()) {
-            page = productRepository.searchByNameAndActive(search, pageable);
-        } else {
-            page = productRepository.findAllActive(pageable);
-        }
+    public PagedResponse<ProductSummaryResponse> getProducts(Pageable pageable, ProductFilter filter,
+                                                             PagedResponse.CountMode countMode) {
+        Specification<Product> spec = ProductSpecifications.matching(filter);
+        Slice<ProductSummaryView> page = countMode == PagedResponse.CountMode.EXACT
+                ? productRepository.findSummaries(spec, pageable)
+                : productRepository.findSummarySlice(spec, pageable);
 
-        List<ProductResponse> content = page.getContent()
+        List<ProductSummaryResponse> content = page.getContent()
                 .stream()
-                .map(this::mapToProductResponse)
+                .map(this::mapToSummaryResponse)
                 .collect(Collectors.toList());
 
-        return PagedResponse.<ProductResponse>builder()
+        Long totalElements = null;
+        Integer totalPages = null;
+        if (page instanceof Page<ProductSummaryView> counted) {
+            totalElements = counted.getTotalElements();
+            totalPages = counted.getTotalPages();
+        } else if (countMode == PagedResponse.CountMode.APPROX) {
+            totalElements = productCountCache.get(filter);
+            totalPages = (int) ((totalElements + page.getSize() - 1) / page.getSize());
+        }
+
+        return PagedResponse.<ProductSummaryResponse>builder()
                 .content(content)
                 .pageNumber(page.getNumber())
                 .pageSize(page.getSize())
-                .totalElements(page.getTotalElements())
-                .totalPages(page.getTotalPages())
-                .last(page.isLast())
+                .totalElements(totalElements)
+                .totalPages(totalPages)
+                .last(!page.hasNext())
                 .build();
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public PagedResponse<ProductSummaryResponse> getProductsAfter(String cursor, int size, Sort sort,
+                                                                 ProductFilter filter) {
+        Sort.Order order = sort.iterator().next();
+        if (!ProductCursor.SORTABLE_PROPERTIES.contains(order.getProperty())) {
+            throw new BadRequestException("Cursor pagination supports sorting by createdAt, priceAfter or name");
+        }
+
+        Specification<Product> spec = ProductSpecifications.matching(filter);
+        if (cursor != null && !cursor.isBlank()) {
+            ProductCursor after = ProductCursor.decode(cursor);
+            if (!after.matches(order)) {
+                throw new BadRequestException("Cursor does not match the requested sort");
+            }
+            spec = spec.and(ProductSpecifications.seekAfter(
+                    order.getProperty(), order.getDirection(), after.getValue(), after.getId()
+            ));
+        }
+
+        // Fetch one extra row to learn whether another page exists without a COUNT
+        Sort seekSort = Sort.by(order, new Sort.Order(order.getDirection(), "id"));
+        List<ProductSummaryView> rows = productRepository.findSummaries(spec, seekSort, size + 1);
+        boolean hasNext = rows.size() > size;
+        List<ProductSummaryView> pageRows = hasNext ? rows.subList(0, size) : rows;
+
+        List<ProductSummaryResponse> content = pageRows.stream()
+                .map(this::mapToSummaryResponse)
+                .collect(Collectors.toList());
+
+        return PagedResponse.<ProductSummaryResponse>builder()
+                .content(content)
+                .pageSize(size)
+                .last(!hasNext)
+                .nextCursor(hasNext
+                        ? ProductCursor.of(order, pageRows.get(pageRows.size() - 1)).encode()
+                        : null)
+                .build();
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    @Override
+    public FacetCounts getFacets(ProductFilter filter) {
+        // Search matches live only in PostgreSQL, so bitmap facets can't account for them
+        return filter.hasSearch() ? null : productFacetIndex.count(filter);
+    }
+
+    @Caching(
+            put = @CachePut(cacheNames = CacheNames.PRODUCTS, key = "#result.slug"),
+            evict = @CacheEvict(cacheNames = CacheNames.CATALOG_RESPONSES, key = "'product:' + #result.slug")
+    )
     @Override
     public ProductResponse updateInventory(Long productId, Integer inventory) {
-        Product product = productRepository.findById(productId)
+        // Locked so no reservation can commit between reading the held units and writing the count
+        Product product = productRepository.findByIdForUpdate(productId)
                 .orElseThrow(
                         () -> new ResourceNotFoundException("Product", "id", productId)
                 );
-        product.setInventory(inventory);
-        Product saved = productRepository.save(product);
+        // Sharded reservations don't touch the products row, so their shard locks are needed too
+        int before = product.getStockShards() > 0
+                ? Arrays.stream(inventoryShardRepository.lockShards(productId)).sum()
+                : product.getInventory();
+        // The new figure is what is on hand; held units are already out of the available stock
+        int held = inventoryHoldRepository.sumQuantityByProductId(productId);
+        if (inventory < held) {
+            throw new BadRequestException(held + " units are held by buyers; inventory cannot be set below that");
+        }
+        product.setInventory(inventory - held);
+        if (product.getStockShards() > 0) {
+            inventoryShardRepository.replace(productId, split(product.getInventory(), product.getStockShards()));
+        }
+        // Flushed so the response and the cached entry carry the version this write commits with
+        Product saved = productRepository.saveAndFlush(product);
+        inventoryLedgerRepository.append(List.of(new Movement(saved.getId(), saved.getInventory() - before,
+                InventoryMovement.Reason.CORRECTION, null)));
+        int available = saved.getInventory();
+        AfterCommit.run(() -> {
+            productFacetIndex.updateStock(productId, available);
+            stockCounters.invalidate(productId);
+        });
+        cartService.evictCartsWithProduct(saved.getId());
+        productStreamService.productChanged(saved.getId());
+        return mapToProductResponse(saved);
+    }
+
+    @Caching(
+            put = @CachePut(cacheNames = CacheNames.PRODUCTS, key = "#result.slug"),
+            evict = @CacheEvict(cacheNames = CacheNames.CATALOG_RESPONSES, key = "'product:' + #result.slug")
+    )
+    @Override
+    public ProductResponse updateStockShards(Long productId, Integer shards) {
+        if (shards < 0 || shards > MAX_STOCK_SHARDS) {
+            throw new BadRequestException("Stock shards must be between 0 and " + MAX_STOCK_SHARDS);
+        }
+        Product product = productRepository.findByIdForUpdate(productId)
+                .orElseThrow(
+                        () -> new ResourceNotFoundException("Product", "id", productId)
+                );
+        int available = product.getStockShards() > 0
+                ? Arrays.stream(inventoryShardRepository.lockShards(productId)).sum()
+                : product.getInventory();
+
+        inventoryShardRepository.replace(productId, split(available, shards));
+        inventoryHoldRepository.reassignShards(productId, shards);
+        product.setInventory(available);
+        product.setStockShards(shards);
+        Product saved = productRepository.saveAndFlush(product);
+        AfterCommit.run(() -> {
+            productFacetIndex.updateStock(productId, available);
+            stockCounters.invalidate(productId);
+        });
+        return mapToProductResponse(saved);
+    }
+
+    @Override
+    public InventoryBatchResponse updateInventories(List<InventoryBatchRequest.Update> updates) {
+        Map<Long, LockedProduct> products = productInventoryRepository.lockForUpdate(updates.stream()
+                .map(InventoryBatchRequest.Update::getProductId)
+                .collect(Collectors.toSet()));
+        Map<Long, Integer> held = productInventoryRepository.sumHeld(products.keySet());
+        // Sharded products keep their stock in shards; all of them are locked at once, after the products
+        List<Long> shardedIds = products.values().stream()
+                .filter(product -> product.stockShards() > 0)
+                .map(LockedProduct::id)
+                .collect(Collectors.toList());
+        Map<Long, int[]> shards = shardedIds.isEmpty() ? Map.of() : inventoryShardRepository.lockShards(shardedIds);
+
+        InventoryBatchResponse.Result[] results = new InventoryBatchResponse.Result[updates.size()];
+        Map<Long, Integer> available = new HashMap<>();
+        List<InventoryWrite> writes = new ArrayList<>();
+        List<Integer> writeIndexes = new ArrayList<>();
+        for (int i = 0; i < updates.size(); i++) {
+            InventoryBatchRequest.Update update = updates.get(i);
+            Long productId = update.getProductId();
+            LockedProduct product = products.get(productId);
+            if (product == null) {
+                results[i] = batchResult(productId, InventoryBatchResponse.Status.NOT_FOUND, null, null, "Product not found");
+                continue;
+            }
+            if (available.containsKey(productId)) {
+                results[i] = batchResult(productId, InventoryBatchResponse.Status.INVALID, null, null,
+                        "Product appears more than once in the batch");
+                continue;
+            }
+            int current = product.stockShards() > 0
+                    ? Arrays.stream(shards.getOrDefault(productId, new int[0])).sum()
+                    : product.inventory();
+            available.put(productId, current);
+
+            String error = null;
+            long next = 0;
+            int productHeld = held.getOrDefault(productId, 0);
+            if ((update.getInventory() == null) == (update.getDelta() == null)) {
+                error = "Exactly one of inventory and delta is required";
+            } else if (update.getInventory() != null) {
+                // Stock on hand, as for a single update: held units are already out of the available stock
+                next = (long) update.getInventory() - productHeld;
+                if (next < 0) {
+                    error = productHeld + " units are held by buyers; inventory cannot be set below that";
+                }
+            } else {
+                next = (long) current + update.getDelta();
+                if (next < 0 || next > Integer.MAX_VALUE) {
+                    error = "Delta would take inventory out of range";
+                }
+            }
+            if (error != null) {
+                results[i] = batchResult(productId, InventoryBatchResponse.Status.INVALID, current, product.version(), error);
+                continue;
+            }
+
+            writes.add(new InventoryWrite(productId, (int) next,
+                    update.getVersion() != null ? update.getVersion() : product.version()));
+            writeIndexes.add(i);
+        }
+
+        boolean[] applied = writes.isEmpty() ? new boolean[0] : productInventoryRepository.updateInventory(writes);
+        List<Long> updatedIds = new ArrayList<>();
+        Map<Long, Integer> updatedStock = new HashMap<>();
+        List<Movement> movements = new ArrayList<>();
+        Map<Long, int[]> shardWrites = new HashMap<>();
+        for (int k = 0; k < writes.size(); k++) {
+            InventoryWrite write = writes.get(k);
+            LockedProduct product = products.get(write.productId());
+            int i = writeIndexes.get(k);
+            if (!applied[k]) {
+                results[i] = batchResult(write.productId(), InventoryBatchResponse.Status.CONFLICT,
+                        available.get(write.productId()), product.version(),
+                        "Product was modified after version " + write.expectedVersion());
+                continue;
+            }
+            if (product.stockShards() > 0) {
+                shardWrites.put(write.productId(), split(write.inventory(), product.stockShards()));
+            }
+            results[i] = batchResult(write.productId(), InventoryBatchResponse.Status.UPDATED,
+                    write.inventory(), write.expectedVersion() + 1, null);
+            // A delta from the feed is goods in or out; an absolute count corrects whatever drifted
+            InventoryBatchRequest.Update update = updates.get(i);
+            movements.add(new Movement(write.productId(), write.inventory() - available.get(write.productId()),
+                    update.getDelta() != null && update.getDelta() > 0
+                            ? InventoryMovement.Reason.RESTOCK
+                            : InventoryMovement.Reason.CORRECTION,
+                    null));
+            updatedStock.put(write.productId(), write.inventory());
+            productDetailCaches.evict(product.slug());
+            updatedIds.add(write.productId());
+        }
+        inventoryShardRepository.updateAll(shardWrites);
+        inventoryLedgerRepository.append(movements);
+        AfterCommit.run(() -> updatedStock.forEach((productId, inventory) -> {
+            productFacetIndex.updateStock(productId, inventory);
+            stockCounters.invalidate(productId);
+        }));
+        cartService.evictCartsWithProducts(updatedIds);
+        productStreamService.productsChanged(updatedIds);
+
+        return InventoryBatchResponse.builder()
+                .updated(updatedIds.size())
+                .failed(updates.size() - updatedIds.size())
+                .results(Arrays.asList(results))
+                .build();
+    }
+
+    private static InventoryBatchResponse.Result batchResult(Long productId, InventoryBatchResponse.Status status,
+                                                             Integer inventory, Long version, String message) {
+        return InventoryBatchResponse.Result.builder()
+                .productId(productId)
+                .status(status)
+                .inventory(inventory)
+                .version(version)
+                .message(message)
+                .build();
+    }
+
+    /** Stock spread as evenly as possible; none for zero shards. */
+    private static int[] split(int available, int shards) {
+        int[] quantities = new int[shards];
+        for (int shard = 0; shard < shards; shard++) {
+            quantities[shard] = available / shards + (shard < available % shards ? 1 : 0);
+        }
+        return quantities;
+    }
+
+    @Caching(
+            put = @CachePut(cacheNames = CacheNames.PRODUCTS, key = "#result.slug"),
+            evict = @CacheEvict(cacheNames = CacheNames.CATALOG_RESPONSES, key = "'product:' + #result.slug")
+    )
+    @Override
+    public ProductResponse updatePrice(Long productId, BigDecimal priceBefore, BigDecimal priceAfter) {
+        // Locked before repricing carts: adds reading the old price have committed, later ones read the new one
+        Product product = productRepository.findByIdForUpdate(productId)
+                .orElseThrow(
+                        () -> new ResourceNotFoundException("Product", "id", productId)
+                );
+        BigDecimal oldPrice = product.getPriceAfter();
+        product.setPriceBefore(priceBefore);
+        product.setPriceAfter(priceAfter);
+        Product saved = productRepository.saveAndFlush(product);
+
+        List<Long> categoryIds = saved.getCategories().stream().map(Category::getId).collect(Collectors.toList());
+        int inventory = saved.getInventory();
+        boolean active = saved.getIsActive();
+        AfterCommit.run(() -> productFacetIndex.put(productId, priceAfter, inventory, active, categoryIds));
+        cartService.repriceProduct(saved.getId(), oldPrice, priceAfter);
+        productStreamService.productChanged(saved.getId());
         return mapToProductResponse(saved);
     }
 
@@ -129,7 +433,33 @@ public class ProductServiceImpl implements ProductService {
                 .orElseThrow(
                         () -> new ResourceNotFoundException("Product", "id", id)
                 );
+        // Loaded now for the suggestion index, which is only told once the delete has committed
+        Hibernate.initialize(product.getCategories());
+        AfterCommit.run(() -> {
+            suggestionService.productDeleted(product);
+            productFacetIndex.remove(id);
+            stockCounters.invalidate(id);
+        });
+        cartService.evictCartsWithProduct(product.getId());
+        // Defers itself to the commit; registering it from inside the block above would never run
+        productStreamService.productChanged(product.getId());
+        inventoryHoldRepository.releaseByProductId(product.getId());
+        inventoryShardRepository.deleteByProductId(product.getId());
         productRepository.delete(product);
+        slugAllocator.release(SlugAllocator.PRODUCTS, product.getSlug());
+        productDetailCaches.evict(product.getSlug());
+    }
+
+    private ProductSummaryResponse mapToSummaryResponse(ProductSummaryView view) {
+        return ProductSummaryResponse.builder()
+                .id(view.id())
+                .name(view.name())
+                .slug(view.slug())
+                .priceBefore(view.priceBefore())
+                .priceAfter(view.priceAfter())
+                .inventory(view.inventory())
+                .primaryImageUrl(view.primaryImageUrl())
+                .build();
     }
 
     private ProductResponse mapToProductResponse(Product product) {
@@ -162,7 +492,12 @@ public class ProductServiceImpl implements ProductService {
                 .slug(product.getSlug())
                 .priceBefore(product.getPriceBefore())
                 .priceAfter(product.getPriceAfter())
-                .inventory(product.getInventory())
+                // products.inventory of a sharded product is only the total as of the last rebalance
+                .inventory(product.getStockShards() > 0
+                        ? inventoryShardRepository.sumByProductId(product.getId())
+                        : product.getInventory())
+                .stockShards(product.getStockShards())
+                .version(product.getVersion())
                 .descriptionHtml(product.getDescriptionHtml())
                 .isActive(product.getIsActive())
                 .categories(categoryResponses)
@@ -0,0 +1,300 @@
+package com.ecom.service.impl;
+
+import com.ecom.dto.ProductStockEvent;
+import com.ecom.exception.BadRequestException;
+import com.ecom.repository.ProductInventoryRepository;
+import com.ecom.repository.ProductInventoryRepository.StockLevel;
+import com.ecom.service.ProductStreamService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Stock and price pushes for product pages. Subscriptions are async SSE
+ * responses, so an idle connection holds a socket and a few objects but no
+ * thread. Writers only add product ids to a changed set; every interval the
+ * set is drained, the subscribed ones are read in one query, and each
+ * subscriber gets at most one event per product, however many changes
+ * happened in between.
+ * <p>
+ * Socket writes block, so they never run on the fan-out thread: each
+ * subscription queues its events, keeping only the latest per product, and
+ * a small writer pool drains the queues. A subscription whose queue has not
+ * moved for the max backlog is closed, and its client reconnects.
+ */
+@Service
+@Slf4j
+public class ProductStreamServiceImpl implements ProductStreamService {
+
+    private static final String EVENT_NAME = "stock";
+    // A subscription is queued at most once, so this only bounds a burst beyond the connection limit
+    private static final int WRITE_QUEUE_CAPACITY = 65_536;
+
+    private final ProductInventoryRepository productInventoryRepository;
+    private final long timeoutMillis;
+    private final int maxProducts;
+    private final Duration interval;
+    private final Duration heartbeatInterval;
+    private final long maxBacklogNanos;
+    // Product id -> open subscriptions that asked for it
+    private final Map<Long, Set<Subscription>> subscribers = new ConcurrentHashMap<>();
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final Set<Long> changed = ConcurrentHashMap.newKeySet();
+    // Own threads, so slow clients hold up neither the shared scheduler nor each other's fan-out
+    private final ScheduledExecutorService fanOut =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("stock-stream-"));
+    private final ThreadPoolExecutor writers;
+
+    public ProductStreamServiceImpl(ProductInventoryRepository productInventoryRepository,
+                                    @Value("${app.stock-stream.timeout}") Duration timeout,
+                                    @Value("${app.stock-stream.max-products}") int maxProducts,
+                                    @Value("${app.stock-stream.interval}") Duration interval,
+                                    @Value("${app.stock-stream.heartbeat-interval}") Duration heartbeatInterval,
+                                    @Value("${app.stock-stream.writer-threads}") int writerThreads,
+                                    @Value("${app.stock-stream.max-backlog}") Duration maxBacklog) {
+        this.productInventoryRepository = productInventoryRepository;
+        this.timeoutMillis = timeout.toMillis();
+        this.maxProducts = maxProducts;
+        this.interval = interval;
+        this.heartbeatInterval = heartbeatInterval;
+        this.maxBacklogNanos = maxBacklog.toNanos();
+        this.writers = new ThreadPoolExecutor(writerThreads, writerThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(WRITE_QUEUE_CAPACITY), new CustomizableThreadFactory("stock-stream-writer-"));
+    }
+
+    @PostConstruct
+    void start() {
+        fanOut.scheduleWithFixedDelay(() -> runLogged("flush", this::flush),
+                interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        fanOut.scheduleWithFixedDelay(() -> runLogged("heartbeat", this::heartbeat),
+                heartbeatInterval.toMillis(), heartbeatInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        fanOut.shutdownNow();
+        writers.shutdownNow();
+    }
+
+    @Override
+    public SseEmitter subscribe(Collection<Long> productIds) {
+        if (productIds.isEmpty() || productIds.size() > maxProducts) {
+            throw new BadRequestException("Subscribe to between 1 and " + maxProducts + " products");
+        }
+
+        // Current values first, so the page needs no separate read
+        Set<Long> ids = Set.copyOf(productIds);
+        List<StockLevel> levels = productInventoryRepository.findStockLevels(ids);
+
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscription subscription = new Subscription(emitter, ids);
+        emitter.onCompletion(() -> remove(subscription));
+        emitter.onTimeout(() -> remove(subscription));
+        emitter.onError(ex -> remove(subscription));
+
+        subscriptions.add(subscription);
+        for (Long productId : ids) {
+            // Inside compute, so an add can't race the removal of the last subscriber's set
+            subscribers.compute(productId, (id, set) -> {
+                Set<Subscription> target = set != null ? set : ConcurrentHashMap.newKeySet();
+                target.add(subscription);
+                return target;
+            });
+        }
+        // Held by the emitter until the response has started, so this writes nothing to the socket
+        try {
+            for (StockLevel level : levels) {
+                emitter.send(toMessage(toEvent(level)));
+            }
+        } catch (IOException | IllegalStateException ex) {
+            remove(subscription);
+        }
+        return emitter;
+    }
+
+    @Override
+    public void productsChanged(Collection<Long> productIds) {
+        // A flush reading before the commit would publish the old values and lose the change
+        List<Long> ids = List.copyOf(productIds);
+        AfterCommit.run(() -> changed.addAll(ids));
+    }
+
+    void flush() {
+        List<Long> productIds = new ArrayList<>();
+        for (Iterator<Long> iterator = changed.iterator(); iterator.hasNext(); ) {
+            Long productId = iterator.next();
+            // Removed before the read below, so a change landing meanwhile is either read now or flushed next time
+            iterator.remove();
+            if (subscribers.containsKey(productId)) {
+                productIds.add(productId);
+            }
+        }
+        if (productIds.isEmpty()) {
+            return;
+        }
+
+        Set<Long> gone = new HashSet<>(productIds);
+        for (StockLevel level : productInventoryRepository.findStockLevels(productIds)) {
+            gone.remove(level.productId());
+            publish(toEvent(level));
+        }
+        // Deleted since the change was recorded: listeners see it sell out
+        for (Long productId : gone) {
+            publish(ProductStockEvent.builder().productId(productId).inventory(0).build());
+        }
+    }
+
+    private void publish(ProductStockEvent event) {
+        Set<Subscription> listening = subscribers.get(event.getProductId());
+        if (listening != null) {
+            listening.forEach(subscription -> subscription.offer(event));
+        }
+    }
+
+    // Keeps proxies from closing idle streams, finds clients that went away and closes stuck ones
+    void heartbeat() {
+        subscriptions.forEach(subscription -> subscription.offer(null));
+    }
+
+    private void remove(Subscription subscription) {
+        subscription.closed = true;
+        if (!subscriptions.remove(subscription)) {
+            return;
+        }
+        for (Long productId : subscription.productIds) {
+            subscribers.computeIfPresent(productId, (id, set) -> {
+                set.remove(subscription);
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+
+    private ProductStockEvent toEvent(StockLevel level) {
+        return ProductStockEvent.builder()
+                .productId(level.productId())
+                .inventory(level.inventory())
+                .priceBefore(level.priceBefore())
+                .priceAfter(level.priceAfter())
+                .build();
+    }
+
+    private static SseEmitter.SseEventBuilder toMessage(ProductStockEvent event) {
+        return SseEmitter.event()
+                .name(EVENT_NAME)
+                .data(event, MediaType.APPLICATION_JSON);
+    }
+
+    private static void runLogged(String task, Runnable action) {
+        try {
+            action.run();
+        } catch (RuntimeException ex) {
+            // An exception escaping would cancel every later run of the task
+            log.error("Stock stream {} failed", task, ex);
+        }
+    }
+
+    /**
+     * One client's pending writes. Queued on the writer pool at most once at a
+     * time; the writer drains it until it is empty, so a client that is slow to
+     * read only delays itself.
+     */
+    private final class Subscription implements Runnable {
+        private final SseEmitter emitter;
+        private final Set<Long> productIds;
+        // Latest unsent event per product; guarded by this, like the fields below
+        private final Map<Long, ProductStockEvent> pending = new LinkedHashMap<>();
+        private boolean heartbeatDue;
+        private boolean queued;
+        // When the queue was last submitted or last written out, while it is queued
+        private long progressAt;
+        private volatile boolean closed;
+
+        private Subscription(SseEmitter emitter, Set<Long> productIds) {
+            this.emitter = emitter;
+            this.productIds = productIds;
+        }
+
+        /** Queues an event, or a heartbeat for null; closes the stream if the client stopped reading. */
+        void offer(ProductStockEvent event) {
+            boolean stuck;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                stuck = queued && System.nanoTime() - progressAt > maxBacklogNanos;
+                if (!stuck) {
+                    if (event != null) {
+                        pending.put(event.getProductId(), event);
+                    } else {
+                        heartbeatDue = true;
+                    }
+                    if (queued) {
+                        return;
+                    }
+                    queued = true;
+                    progressAt = System.nanoTime();
+                }
+            }
+            if (stuck) {
+                log.debug("Closing a stock stream that has not read for {} ms", maxBacklogNanos / 1_000_000);
+                // The writer holding the queue completes the emitter once its current write returns or fails
+                remove(this);
+                return;
+            }
+            try {
+                writers.execute(this);
+            } catch (RejectedExecutionException ex) {
+                // Pool saturated; what is pending stays and goes with the next offer
+                synchronized (this) {
+                    queued = false;
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                List<ProductStockEvent> events;
+                boolean heartbeat;
+                synchronized (this) {
+                    if (closed || (pending.isEmpty() && !heartbeatDue)) {
+                        queued = false;
+                        break;
+                    }
+                    events = new ArrayList<>(pending.values());
+                    pending.clear();
+                    heartbeat = heartbeatDue;
+                    heartbeatDue = false;
+                }
+                try {
+                    for (ProductStockEvent event : events) {
+                        emitter.send(toMessage(event));
+                    }
+                    if (heartbeat) {
+                        emitter.send(SseEmitter.event().comment("keep-alive"));
+                    }
+                } catch (IOException | IllegalStateException ex) {
+                    // Client went away; the container's error callback may come later or not at all
+                    remove(this);
+                    return;
+                }
+                synchronized (this) {
+                    progressAt = System.nanoTime();
+                }
+            }
+            if (closed) {
+                emitter.complete();
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.ecom.service.impl;
+
+import com.ecom.exception.ApiException;
+import com.ecom.repository.SlugReservationRepository;
+import com.ecom.security.SlugUtils;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Hands out unique slugs ("t-shirt", "t-shirt-1", "t-shirt-2", ...) with one
+ * query for the suffixes already taken and one insert that claims the next
+ * free ones. A concurrent create that claimed the same slug makes the insert
+ * skip it, and only those names are retried.
+ */
+@Component
+@RequiredArgsConstructor
+class SlugAllocator {
+
+    static final String PRODUCTS = "product";
+    static final String CATEGORIES = "category";
+
+    private static final int MAX_ATTEMPTS = 5;
+    private static final Pattern NUMBERED = Pattern.compile("^(.*)-(\\d{1,18})$");
+
+    private final SlugReservationRepository slugReservationRepository;
+    private final SlugUtils slugUtils;
+
+    String allocate(String scope, String name) {
+        return allocateAll(scope, List.of(name)).get(0);
+    }
+
+    /** Allocates one slug per name, in order, for the whole batch at once. */
+    List<String> allocateAll(String scope, List<String> names) {
+        List<String> bases = names.stream().map(name -> base(scope, name)).collect(Collectors.toList());
+        String[] slugs = new String[names.size()];
+
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < names.size(); i++) {
+            pending.add(i);
+        }
+
+        for (int attempt = 0; attempt < MAX_ATTEMPTS && !pending.isEmpty(); attempt++) {
+            Map<String, Taken> taken = findTaken(scope, pending.stream().map(bases::get).collect(Collectors.toSet()));
+
+            Map<Integer, String> candidates = new LinkedHashMap<>();
+            for (Integer i : pending) {
+                candidates.put(i, taken.get(bases.get(i)).next(bases.get(i)));
+            }
+
+            Set<String> reserved = new HashSet<>(
+                    slugReservationRepository.reserveAll(scope, String.join(",", candidates.values()))
+            );
+
+            List<Integer> conflicted = new ArrayList<>();
+            candidates.forEach((i, slug) -> {
+                // remove() so two names in the batch that landed on the same slug can't both take it
+                if (reserved.remove(slug)) {
+                    slugs[i] = slug;
+                } else {
+                    conflicted.add(i);
+                }
+            });
+            pending = conflicted;
+        }
+
+        if (!pending.isEmpty()) {
+            throw new ApiException(HttpStatus.CONFLICT, "Could not allocate a unique slug, please retry");
+        }
+        return Arrays.asList(slugs);
+    }
+
+    void release(String scope, String slug) {
+        slugReservationRepository.release(scope, slug);
+    }
+
+    // Names with no Latin letters or digits (e.g. all Devanagari) slug to nothing usable; they become "product-3" etc.
+    private String base(String scope, String name) {
+        String slug = slugUtils.toSlug(name);
+        return slug.chars().anyMatch(Character::isLetterOrDigit) ? slug : scope;
+    }
+
+    private Map<String, Taken> findTaken(String scope, Set<String> bases) {
+        Map<String, Taken> taken = new HashMap<>();
+        bases.forEach(base -> taken.put(base, new Taken()));
+
+        for (String slug : slugReservationRepository.findTakenWithBases(scope, String.join(",", bases))) {
+            Taken exact = taken.get(slug);
+            if (exact != null) {
+                exact.baseTaken = true;
+            }
+            Matcher numbered = NUMBERED.matcher(slug);
+            if (numbered.matches()) {
+                Taken owner = taken.get(numbered.group(1));
+                if (owner != null) {
+                    owner.maxSuffix = Math.max(owner.maxSuffix, Long.parseLong(numbered.group(2)));
+                }
+            }
+        }
+        return taken;
+    }
+
+    private final class Taken {
+        private boolean baseTaken;
+        private long maxSuffix;
+
+        String next(String base) {
+            if (!baseTaken) {
+                baseTaken = true;
+                return base;
+            }
+            return slugUtils.generateUniqueSlug(base, ++maxSuffix);
+        }
+    }
+}
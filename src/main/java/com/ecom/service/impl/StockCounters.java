@@ -0,0 +1,131 @@
+package com.ecom.service.impl;
+
+import com.ecom.exception.ResourceNotFoundException;
+import com.ecom.repository.InventoryShardRepository;
+import com.ecom.repository.InventoryShardRepository.StockLevels;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory copy of each product's available stock, in front of the
+ * conditional decrements. It only ever says no: a request it lets through
+ * still has to win in PostgreSQL, so a stale count costs a database round
+ * trip, never an oversell. A sharded product gets one stripe per shard row,
+ * which also steers buyers to a shard that can serve them. Counters are
+ * LongAdders, striped per contending thread, so hundreds of buyers of one
+ * SKU don't serialize on a single memory word. Local changes are applied
+ * after their transaction commits. Entries are reloaded after the refresh
+ * interval, which bounds drift from writes made elsewhere (other instances),
+ * and a count that is too low costs one reload, as a refused reservation is
+ * retried once against fresh figures.
+ */
+@Component
+class StockCounters {
+
+    private final InventoryShardRepository inventoryShardRepository;
+    private final Cache<Long, Stock> stocks;
+
+    StockCounters(InventoryShardRepository inventoryShardRepository,
+                  @Value("${app.inventory.counter-refresh}") Duration refresh) {
+        this.inventoryShardRepository = inventoryShardRepository;
+        this.stocks = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(refresh)
+                .build();
+    }
+
+    Stock get(Long productId) {
+        return stocks.get(productId, this::load);
+    }
+
+    /** Drops what is known and reads the current stock from the database. */
+    Stock reload(Long productId) {
+        Stock stock = load(productId);
+        stocks.put(productId, stock);
+        return stock;
+    }
+
+    /** Adjusts a stripe; a null shard is the product's single stripe. */
+    void add(Long productId, Integer shard, int delta) {
+        Stock stock = stocks.getIfPresent(productId);
+        if (stock != null) {
+            stock.add(shard != null ? shard : 0, delta);
+        }
+    }
+
+    void set(Long productId, int shard, int available) {
+        Stock stock = stocks.getIfPresent(productId);
+        if (stock != null && shard < stock.stripes.length) {
+            stock.stripes[shard].reset();
+            stock.stripes[shard].add(available);
+        }
+    }
+
+    void invalidate(Long productId) {
+        stocks.invalidate(productId);
+    }
+
+    private Stock load(Long productId) {
+        StockLevels levels = inventoryShardRepository.findStockLevels(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product", "id", productId));
+        return new Stock(levels.slug(), levels.sharded(), levels.quantities());
+    }
+
+    static final class Stock {
+        // Slugs never change, and stock writers need it to evict the slug-keyed product caches
+        private final String slug;
+        private final boolean sharded;
+        private final LongAdder[] stripes;
+
+        private Stock(String slug, boolean sharded, int[] quantities) {
+            this.slug = slug;
+            this.sharded = sharded;
+            this.stripes = new LongAdder[quantities.length];
+            for (int i = 0; i < quantities.length; i++) {
+                stripes[i] = new LongAdder();
+                stripes[i].add(quantities[i]);
+            }
+        }
+
+        String slug() {
+            return slug;
+        }
+
+        boolean sharded() {
+            return sharded;
+        }
+
+        int shards() {
+            return stripes.length;
+        }
+
+        long available() {
+            long total = 0;
+            for (LongAdder stripe : stripes) {
+                total += stripe.sum();
+            }
+            return total;
+        }
+
+        long available(int shard) {
+            return stripes[shard].sum();
+        }
+
+        /** A random first shard, so concurrent buyers spread over the shard rows. */
+        int firstShard() {
+            return ThreadLocalRandom.current().nextInt(stripes.length);
+        }
+
+        private void add(int shard, int delta) {
+            if (shard < stripes.length) {
+                stripes[shard].add(delta);
+            }
+        }
+    }
+}
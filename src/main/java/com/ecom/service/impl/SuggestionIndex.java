@@ -0,0 +1,274 @@
+package com.ecom.service.impl;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory prefix index over names. Every prefix of every normalized word of
+ * a name has a node holding the best-ranked entries under it, capped at
+ * {@link #TOP_K}, so a lookup reads one node whatever the catalog size. Nodes
+ * are kept current by the writes, which only happen on catalog edits and are
+ * serialized. Score changes are applied to the nodes by {@link #rerank()};
+ * lookups order their candidates by the live score. Reads are lock-free.
+ */
+class SuggestionIndex {
+
+    // Candidates per prefix; a multi-word query filters them, so keep a few pages' worth
+    static final int TOP_K = 64;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Entry[] NONE = new Entry[0];
+
+    // Every entry by word; only read on writes, to refill a node that lost an entry
+    private final ConcurrentSkipListMap<String, Set<Entry>> tokens = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<String, Prefix> prefixes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Entry> entriesBySlug = new ConcurrentHashMap<>();
+    private final Set<Entry> rescored = ConcurrentHashMap.newKeySet();
+
+    static String[] tokenize(String text) {
+        if (text == null) {
+            return new String[0];
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return Arrays.stream(NON_WORD.split(folded.toLowerCase(Locale.ROOT)))
+                .filter(token -> !token.isEmpty())
+                .distinct()
+                .toArray(String[]::new);
+    }
+
+    synchronized void put(Long id, String name, String slug) {
+        Entry previous = entries.get(id);
+        long score = previous != null ? previous.score.get() : 0;
+        remove(id);
+        Entry entry = new Entry(id, name, slug, tokenize(name), score);
+        entries.put(id, entry);
+        entriesBySlug.put(slug, entry);
+        for (String token : entry.tokens) {
+            tokens.computeIfAbsent(token, key -> ConcurrentHashMap.newKeySet()).add(entry);
+        }
+        for (String prefix : entry.prefixes) {
+            Prefix node = prefixes.computeIfAbsent(prefix, key -> new Prefix());
+            node.count++;
+            node.offer(entry);
+        }
+    }
+
+    synchronized void remove(Long id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        entriesBySlug.remove(entry.slug, entry);
+        for (String token : entry.tokens) {
+            Set<Entry> bucket = tokens.get(token);
+            if (bucket != null) {
+                bucket.remove(entry);
+                if (bucket.isEmpty()) {
+                    tokens.remove(token);
+                }
+            }
+        }
+        for (String prefix : entry.prefixes) {
+            Prefix node = prefixes.get(prefix);
+            if (--node.count == 0) {
+                prefixes.remove(prefix);
+            } else if (node.remove(entry) && node.count > node.top.length) {
+                refill(prefix, node);
+            }
+        }
+    }
+
+    synchronized void clear() {
+        tokens.clear();
+        prefixes.clear();
+        entries.clear();
+        entriesBySlug.clear();
+        rescored.clear();
+    }
+
+    void addScore(Long id, long delta) {
+        Entry entry = entries.get(id);
+        if (entry != null) {
+            entry.score.addAndGet(delta);
+            rescored.add(entry);
+        }
+    }
+
+    void addScoreBySlug(String slug, long delta) {
+        Entry entry = entriesBySlug.get(slug);
+        if (entry != null) {
+            entry.score.addAndGet(delta);
+            rescored.add(entry);
+        }
+    }
+
+    /**
+     * Moves entries whose score changed since the last call to their new
+     * place in the nodes of their prefixes. Until then they keep their old
+     * place, so an entry that has just climbed may not be a candidate yet.
+     */
+    synchronized void rerank() {
+        for (Iterator<Entry> it = rescored.iterator(); it.hasNext(); ) {
+            Entry entry = it.next();
+            it.remove();
+            long score = entry.score.get();
+            if (entries.get(entry.id) != entry || score == entry.rankedScore) {
+                continue;
+            }
+
+            boolean raised = score > entry.rankedScore;
+            entry.rankedScore = score;
+            for (String prefix : entry.prefixes) {
+                Prefix node = prefixes.get(prefix);
+                boolean held = node.remove(entry);
+                if (held && !raised && node.count > node.top.length) {
+                    // An entry outside the node may now outrank it
+                    refill(prefix, node);
+                } else if (held || raised) {
+                    node.offer(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Entries whose words start with every word of the query, highest score
+     * first. Candidates are the node of the longest query word, so a
+     * multi-word match ranked below that node's {@link #TOP_K} is not found.
+     */
+    List<Entry> search(String query, int limit) {
+        String[] terms = tokenize(query);
+        if (terms.length == 0) {
+            return List.of();
+        }
+        String seed = Arrays.stream(terms).max(Comparator.comparingInt(String::length)).get();
+        Prefix node = prefixes.get(seed);
+        if (node == null) {
+            return List.of();
+        }
+
+        List<Entry> results = new ArrayList<>();
+        for (Entry entry : node.top) {
+            if (entry.matchesAll(terms)) {
+                results.add(entry);
+            }
+        }
+        results.sort(RANKING);
+        return results.size() > limit ? List.copyOf(results.subList(0, limit)) : results;
+    }
+
+    // Rebuilds a node from the word buckets under its prefix; a write-path scan
+    private void refill(String prefix, Prefix node) {
+        PriorityQueue<Entry> best = new PriorityQueue<>(TOP_K + 1, RANKED.reversed());
+        Set<Entry> seen = new HashSet<>();
+        for (Set<Entry> bucket : tokens.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            for (Entry entry : bucket) {
+                if (seen.add(entry)) {
+                    best.offer(entry);
+                    if (best.size() > TOP_K) {
+                        best.poll();
+                    }
+                }
+            }
+        }
+        Entry[] top = best.toArray(NONE);
+        Arrays.sort(top, RANKED);
+        node.top = top;
+    }
+
+    // Highest score first, then shorter (closer) names, then alphabetical
+    private static final Comparator<Entry> RANKING = Comparator
+            .comparingLong((Entry entry) -> entry.score.get()).reversed()
+            .thenComparingInt(entry -> entry.name.length())
+            .thenComparing(entry -> entry.name);
+
+    // The same order by the score the nodes were last arranged with, which only changes under the lock
+    private static final Comparator<Entry> RANKED = Comparator
+            .comparingLong((Entry entry) -> entry.rankedScore).reversed()
+            .thenComparingInt(entry -> entry.name.length())
+            .thenComparing(entry -> entry.name);
+
+    /** The best entries under one prefix, copied on write; count includes those past the cap. */
+    private static final class Prefix {
+        private volatile Entry[] top = NONE;
+        private int count;
+
+        void offer(Entry entry) {
+            Entry[] current = top;
+            if (current.length == TOP_K && RANKED.compare(entry, current[TOP_K - 1]) >= 0) {
+                return;
+            }
+            int at = Arrays.binarySearch(current, entry, RANKED);
+            if (at < 0) {
+                at = -at - 1;
+            }
+            Entry[] next = new Entry[Math.min(current.length + 1, TOP_K)];
+            System.arraycopy(current, 0, next, 0, at);
+            next[at] = entry;
+            System.arraycopy(current, at, next, at + 1, next.length - at - 1);
+            top = next;
+        }
+
+        boolean remove(Entry entry) {
+            Entry[] current = top;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] == entry) {
+                    Entry[] next = new Entry[current.length - 1];
+                    System.arraycopy(current, 0, next, 0, i);
+                    System.arraycopy(current, i + 1, next, i, next.length - i);
+                    top = next;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    static final class Entry {
+        final Long id;
+        final String name;
+        final String slug;
+        private final String[] tokens;
+        private final String[] prefixes;
+        private final AtomicLong score;
+        private long rankedScore;
+
+        private Entry(Long id, String name, String slug, String[] tokens, long score) {
+            this.id = id;
+            this.name = name;
+            this.slug = slug;
+            this.tokens = tokens;
+            Set<String> prefixes = new LinkedHashSet<>();
+            for (String token : tokens) {
+                for (int end = 1; end <= token.length(); end++) {
+                    prefixes.add(token.substring(0, end));
+                }
+            }
+            this.prefixes = prefixes.toArray(new String[0]);
+            this.score = new AtomicLong(score);
+            this.rankedScore = score;
+        }
+
+        private boolean matchesAll(String[] terms) {
+            for (String term : terms) {
+                boolean matched = false;
+                for (String token : tokens) {
+                    if (token.startsWith(term)) {
+                        matched = true;
+                        break;
+                    }
+                }
+                if (!matched) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.ecom.service.impl;
+
+
+import com.ecom.dto.SuggestionResponse;
+import com.ecom.entity.Category;
+import com.ecom.entity.Product;
+import com.ecom.repository.CategoryRepository;
+import com.ecom.repository.ProductRepository;
+import com.ecom.service.SuggestionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Search-box suggestions served entirely from memory. Product entries are
+ * ranked by detail-page views since startup, category entries by how many
+ * active products they hold.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SuggestionServiceImpl implements SuggestionService {
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+
+    private final SuggestionIndex productIndex = new SuggestionIndex();
+    private final SuggestionIndex categoryIndex = new SuggestionIndex();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        productIndex.clear();
+        categoryIndex.clear();
+
+        List<ProductRepository.ProductNameView> products = productRepository.findActiveNames();
+        products.forEach(p -> productIndex.put(p.getId(), p.getName(), p.getSlug()));
+
+        List<Category> categories = categoryRepository.findAll();
+        categories.forEach(c -> categoryIndex.put(c.getId(), c.getName(), c.getSlug()));
+        for (Object[] row : productRepository.countActiveByCategory()) {
+            categoryIndex.addScore((Long) row[0], (Long) row[1]);
+        }
+
+        log.info("Suggestion index built with {} products and {} categories",
+                products.size(), categories.size());
+    }
+
+    // Views only move a product between prefix top lists here, keeping the view path to a counter increment
+    @Scheduled(fixedDelayString = "${app.suggest.rerank-interval}")
+    public void rerank() {
+        productIndex.rerank();
+        categoryIndex.rerank();
+    }
+
+    @Override
+    public SuggestionResponse suggest(String query, int limit) {
+        return SuggestionResponse.builder()
+                .products(toItems(productIndex.search(query, limit)))
+                .categories(toItems(categoryIndex.search(query, limit)))
+                .build();
+    }
+
+    @Override
+    public void recordProductView(String slug) {
+        productIndex.addScoreBySlug(slug, 1);
+    }
+
+    @Override
+    public void productSaved(Product product) {
+        if (!Boolean.TRUE.equals(product.getIsActive())) {
+            productIndex.remove(product.getId());
+            return;
+        }
+        productIndex.put(product.getId(), product.getName(), product.getSlug());
+        product.getCategories().forEach(c -> categoryIndex.addScore(c.getId(), 1));
+    }
+
+    @Override
+    public void productDeleted(Product product) {
+        productIndex.remove(product.getId());
+        product.getCategories().forEach(c -> categoryIndex.addScore(c.getId(), -1));
+    }
+
+    @Override
+    public void categorySaved(Category category) {
+        categoryIndex.put(category.getId(), category.getName(), category.getSlug());
+    }
+
+    private List<SuggestionResponse.Item> toItems(List<SuggestionIndex.Entry> entries) {
+        return entries.stream()
+                .map(entry -> SuggestionResponse.Item.builder()
+                        .id(entry.id)
+                        .name(entry.name)
+                        .slug(entry.slug)
+                        .build())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,12 @@
+-- Executed by Hibernate after schema creation (spring.jpa.hibernate.ddl-auto=create)
+-- Full-text search over products.search_vector. The functions are single-statement SQL so PostgreSQL inlines them
+-- and idx_product_search_vector still serves product_search_matches predicates built through the Criteria API.
+CREATE INDEX idx_product_search_vector ON products USING GIN (search_vector);
+CREATE OR REPLACE FUNCTION product_search_matches(vector tsvector, query text) RETURNS boolean LANGUAGE sql IMMUTABLE AS $$ SELECT vector @@ to_tsquery('english', query) $$;
+CREATE OR REPLACE FUNCTION product_search_rank(vector tsvector, query text) RETURNS real LANGUAGE sql IMMUTABLE AS $$ SELECT ts_rank_cd(vector, to_tsquery('english', query)) $$;
+-- In-stock listings: only active rows with stock, in the default listing order
+CREATE INDEX idx_product_in_stock ON products (created_at, id) WHERE is_active AND inventory > 0;
+-- Slug allocation: prefix range scans with byte-wise (~>=~ / ~<~) comparison, independent of the database collation
+CREATE INDEX idx_slug_reservation_prefix ON slug_reservations (scope, slug varchar_pattern_ops);
+-- Inventory ledger: movements are appended with plain SQL; a partial index finds the uncompacted tail of a product
+CREATE INDEX idx_inventory_movement_tail ON inventory_movements (product_id, id) WHERE NOT compacted;
@@ -0,0 +1,67 @@
+package com.ecom.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class WriteGenerationCacheTest {
+
+    private final WriteGenerationCache cache = new WriteGenerationCache(new ConcurrentMapCache("test"));
+
+    @Test
+    void loadAfterMissIsKept() {
+        assertNull(cache.get("product:mug"));
+        cache.put("product:mug", "v1");
+
+        assertEquals("v1", cache.get("product:mug").get());
+    }
+
+    @Test
+    void loadRacingAnEvictionIsDropped() {
+        assertNull(cache.get("product:mug"));
+        // A writer on another thread commits and evicts while this thread is loading
+        CompletableFuture.runAsync(() -> cache.evict("product:mug")).join();
+        cache.put("product:mug", "stale");
+
+        assertNull(cache.get("product:mug"));
+    }
+
+    @Test
+    void loadRacingAWriterPutIsDropped() {
+        assertNull(cache.get("product:mug"));
+        CompletableFuture.runAsync(() -> cache.put("product:mug", "fresh")).join();
+        cache.put("product:mug", "stale");
+
+        assertNull(cache.get("product:mug"));
+    }
+
+    @Test
+    void loadRacingAClearIsDropped() {
+        assertNull(cache.get("categories"));
+        CompletableFuture.runAsync(cache::clear).join();
+        cache.put("categories", "stale");
+
+        assertNull(cache.get("categories"));
+    }
+
+    @Test
+    void putWithoutAMissIsAWrite() {
+        cache.put("product:mug", "v1");
+        cache.put("product:mug", "v2");
+
+        assertEquals("v2", cache.get("product:mug").get());
+    }
+
+    @Test
+    void writeToAnotherKeyInADifferentStripeKeepsTheLoad() {
+        assertNull(cache.get(1));
+        CompletableFuture.runAsync(() -> cache.evict(2)).join();
+        cache.put(1, "v1");
+
+        assertEquals("v1", cache.get(1).get());
+    }
+}
@@ -0,0 +1,138 @@
+package com.ecom.repository;
+
+import com.ecom.entity.AuditLog;
+import com.ecom.entity.Category;
+import com.ecom.entity.Product;
+import com.ecom.entity.ProductImage;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * JDBC statements per write, counted by Hibernate statistics (what
+ * HIBERNATE_STATS=true logs). With IDENTITY ids every row was its own
+ * insert: 10 statements for a product with 8 images and 2 categories, 20
+ * for 20 audit rows. Sequence ids reserved 50 at a time let them batch.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class BatchedInsertStatementsTest {
+
+    // Repetitions per measurement; the statistics are global, so the smallest count is the operation's own
+    private static final int RUNS = 3;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private AuditLogRepository auditLogRepository;
+
+    private Statistics statistics;
+    private TransactionTemplate transactionTemplate;
+    private final List<Long> categoryIds = new ArrayList<>();
+    private final List<Long> productIds = new ArrayList<>();
+    private final List<Long> auditLogIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        for (int i = 0; i < 2; i++) {
+            String suffix = UUID.randomUUID().toString();
+            categoryIds.add(categoryRepository.save(Category.builder()
+                    .name("Statements " + suffix)
+                    .slug("statements-" + suffix)
+                    .build()).getId());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAllById(productIds);
+        categoryRepository.deleteAllById(categoryIds);
+        auditLogRepository.deleteAllById(auditLogIds);
+    }
+
+    @Test
+    void productWithEightImagesIsThreeStatements() {
+        long cold = statements(this::createProductWithImages);
+        // One product insert, one image batch, one product_categories batch, plus at most one nextval per sequence
+        assertTrue(cold <= 5, "cold create took " + cold + " statements");
+
+        assertEquals(3, fewestStatements(this::createProductWithImages));
+    }
+
+    @Test
+    void twentyAuditRowsAreOneStatement() {
+        statements(transaction -> createAuditLogs());
+
+        assertEquals(1, fewestStatements(transaction -> createAuditLogs()));
+    }
+
+    private void createProductWithImages(Set<Category> categories) {
+        String suffix = UUID.randomUUID().toString();
+        Product product = Product.builder()
+                .name("Statements product")
+                .slug("statements-product-" + suffix)
+                .priceBefore(new BigDecimal("20.00"))
+                .priceAfter(new BigDecimal("10.00"))
+                .inventory(5)
+                .categories(categories)
+                .build();
+        for (int i = 0; i < 8; i++) {
+            product.addImage(ProductImage.builder()
+                    .imageUrl("/uploads/" + suffix + "-" + i + ".jpg")
+                    .displayOrder(i)
+                    .isPrimary(i == 0)
+                    .build());
+        }
+        productIds.add(productRepository.save(product).getId());
+    }
+
+    private void createAuditLogs() {
+        for (int i = 0; i < 20; i++) {
+            auditLogIds.add(auditLogRepository.save(AuditLog.builder()
+                    .eventType(AuditLog.EventType.LOGIN_SUCCESS)
+                    .success(true)
+                    .details("statements " + i)
+                    .build()).getId());
+        }
+    }
+
+    private long fewestStatements(Consumer<Set<Category>> write) {
+        long fewest = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++) {
+            fewest = Math.min(fewest, statements(write));
+        }
+        return fewest;
+    }
+
+    // Statements prepared from the write until its commit, not counting the category load before it
+    private long statements(Consumer<Set<Category>> write) {
+        long[] before = new long[1];
+        transactionTemplate.executeWithoutResult(status -> {
+            Set<Category> categories = new HashSet<>(categoryRepository.findAllById(categoryIds));
+            before[0] = statistics.getPrepareStatementCount();
+            write.accept(categories);
+        });
+        return statistics.getPrepareStatementCount() - before[0];
+    }
+}
@@ -0,0 +1,172 @@
+package com.ecom.service;
+
+import com.ecom.dto.InventoryHoldResponse;
+import com.ecom.entity.Product;
+import com.ecom.entity.User;
+import com.ecom.exception.BadRequestException;
+import com.ecom.repository.InventoryHoldRepository;
+import com.ecom.repository.InventoryShardRepository;
+import com.ecom.repository.ProductRepository;
+import com.ecom.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Many buyers of one SKU at once, against the real database: every request
+ * is released by a shared latch so they all contend for the same row.
+ */
+@SpringBootTest
+class InventoryServiceConcurrencyTest {
+
+    private static final int BUYERS = 300;
+    private static final int STOCK = 50;
+
+    @Autowired
+    private InventoryService inventoryService;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private InventoryHoldRepository inventoryHoldRepository;
+    @Autowired
+    private InventoryShardRepository inventoryShardRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private Product product;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString();
+        product = productRepository.save(Product.builder()
+                .name("Flash sale item")
+                .slug("flash-sale-item-" + suffix)
+                .priceBefore(new BigDecimal("20.00"))
+                .priceAfter(new BigDecimal("10.00"))
+                .inventory(STOCK)
+                .build());
+        user = userRepository.save(User.builder()
+                .name("Buyer")
+                .email("buyer-" + suffix + "@example.com")
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        inventoryHoldRepository.deleteAll(inventoryHoldRepository.findAll().stream()
+                .filter(hold -> hold.getProduct().getId().equals(product.getId()))
+                .toList());
+        inventoryShardRepository.deleteByProductId(product.getId());
+        productRepository.deleteById(product.getId());
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    void concurrentBuyersNeverOversell() throws Exception {
+        AtomicInteger rejected = new AtomicInteger();
+        List<InventoryHoldResponse> holds = runConcurrently(BUYERS, () -> {
+            try {
+                return inventoryService.reserve(user.getId(), product.getId(), 1);
+            } catch (BadRequestException ex) {
+                rejected.incrementAndGet();
+                return null;
+            }
+        });
+
+        assertEquals(STOCK, holds.size());
+        assertEquals(BUYERS - STOCK, rejected.get());
+        assertEquals(0, currentInventory());
+    }
+
+    @Test
+    void shardedProductNeverOversells() throws Exception {
+        productService.updateStockShards(product.getId(), 8);
+
+        List<InventoryHoldResponse> holds = runConcurrently(BUYERS, () -> {
+            try {
+                return inventoryService.reserve(user.getId(), product.getId(), 1);
+            } catch (BadRequestException ex) {
+                return null;
+            }
+        });
+
+        assertEquals(STOCK, holds.size());
+        assertEquals(0, inventoryShardRepository.sumByProductId(product.getId()));
+
+        holds.forEach(hold -> inventoryService.release(user.getId(), hold.getId()));
+        assertEquals(STOCK, inventoryShardRepository.sumByProductId(product.getId()));
+    }
+
+    @Test
+    void concurrentReleasesReturnEachHoldOnce() throws Exception {
+        List<InventoryHoldResponse> holds = new ArrayList<>();
+        for (int i = 0; i < STOCK; i++) {
+            holds.add(inventoryService.reserve(user.getId(), product.getId(), 1));
+        }
+        assertEquals(0, currentInventory());
+
+        // Every hold released twice at the same moment: only one of each pair may return stock
+        List<Long> holdIds = new ArrayList<>();
+        holds.forEach(hold -> {
+            holdIds.add(hold.getId());
+            holdIds.add(hold.getId());
+        });
+        AtomicInteger next = new AtomicInteger();
+        List<Boolean> released = runConcurrently(holdIds.size(), () -> {
+            try {
+                inventoryService.release(user.getId(), holdIds.get(next.getAndIncrement()));
+                return true;
+            } catch (RuntimeException ex) {
+                return null;
+            }
+        });
+
+        assertEquals(STOCK, released.size());
+        assertEquals(STOCK, currentInventory());
+    }
+
+    private int currentInventory() {
+        return productRepository.findInventoryById(product.getId()).orElseThrow();
+    }
+
+    /** Runs the task the given number of times concurrently; collects the non-null results. */
+    private <T> List<T> runConcurrently(int count, Callable<T> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(64);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                T result = future.get(60, TimeUnit.SECONDS);
+                if (result != null) {
+                    results.add(result);
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
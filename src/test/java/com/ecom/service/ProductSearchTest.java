@@ -0,0 +1,119 @@
+package com.ecom.service;
+
+import com.ecom.dto.PagedResponse;
+import com.ecom.dto.ProductFilter;
+import com.ecom.dto.ProductSummaryResponse;
+import com.ecom.entity.Product;
+import com.ecom.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Full-text search against the real database: the generated search_vector,
+ * product_search_matches and product_search_rank from import.sql, and the
+ * tsquery built from user input. Every product name carries a random marker
+ * word, and every query includes it, so other rows never match.
+ */
+@SpringBootTest
+class ProductSearchTest {
+
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private ProductRepository productRepository;
+
+    private final List<Long> productIds = new ArrayList<>();
+    private String marker;
+    private Product walnutDesk;
+    private Product oakBookshelf;
+    private Product glassLamp;
+
+    @BeforeEach
+    void setUp() {
+        marker = randomWord();
+        walnutDesk = save(marker + " Walnut Desk", "<p>Solid oak legs</p>");
+        oakBookshelf = save(marker + " Oak Bookshelf", "<p>Walnut veneer shelves</p>");
+        glassLamp = save(marker + " Glass Lamp", "<p>Brass base</p>");
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAllById(productIds);
+    }
+
+    @Test
+    void everyWordMustMatch() {
+        assertEquals(List.of(walnutDesk.getId()), search(marker + " walnut desk"));
+        assertEquals(List.of(), search(marker + " walnut lamp"));
+    }
+
+    @Test
+    void wordsMatchAsPrefixes() {
+        assertEquals(List.of(oakBookshelf.getId()), search(marker + " book"));
+        assertEquals(List.of(glassLamp.getId()), search(marker.substring(0, 6) + " gla la"));
+    }
+
+    @Test
+    void nameMatchesRankAboveDescriptionMatches() {
+        // Walnut is in the desk's name (weight A) and only in the bookshelf's description (weight B)
+        assertEquals(List.of(walnutDesk.getId(), oakBookshelf.getId()), search(marker + " walnut"));
+        assertEquals(List.of(oakBookshelf.getId(), walnutDesk.getId()), search(marker + " oak"));
+    }
+
+    @Test
+    void descriptionMarkupIsNotSearchable() {
+        assertEquals(List.of(), search(marker + " p"));
+    }
+
+    @Test
+    void tsqueryOperatorsInInputAreTreatedAsSeparators() {
+        assertEquals(List.of(walnutDesk.getId()), search(marker + " walnut' & | ! (desk:* <->"));
+        assertEquals(List.of(walnutDesk.getId()), search("\\" + marker + "'):desk"));
+    }
+
+    @Test
+    void inputWithoutWordsMatchesNothing() {
+        assertEquals(List.of(), search("&|!():*'"));
+    }
+
+    private List<Long> search(String query) {
+        PagedResponse<ProductSummaryResponse> page = productService.getProducts(PageRequest.of(0, 20),
+                ProductFilter.builder().search(query).build(), PagedResponse.CountMode.NONE);
+        return page.getContent().stream().map(ProductSummaryResponse::getId).collect(Collectors.toList());
+    }
+
+    private Product save(String name, String descriptionHtml) {
+        Product product = productRepository.save(Product.builder()
+                .name(name)
+                .slug(name.toLowerCase().replace(' ', '-'))
+                .priceBefore(new BigDecimal("20.00"))
+                .priceAfter(new BigDecimal("10.00"))
+                .inventory(5)
+                .descriptionHtml(descriptionHtml)
+                .build());
+        productIds.add(product.getId());
+        return product;
+    }
+
+    // Consonants only, so the English stemmer leaves the word as it is
+    private static String randomWord() {
+        String letters = "bcdfghjkmnpqrtvwxz";
+        StringBuilder word = new StringBuilder("qx");
+        for (int i = 0; i < 10; i++) {
+            word.append(letters.charAt(ThreadLocalRandom.current().nextInt(letters.length())));
+        }
+        return word.toString();
+    }
+}
@@ -0,0 +1,98 @@
+package com.ecom.service;
+
+import com.ecom.dto.InventoryBatchRequest;
+import com.ecom.dto.InventoryBatchResponse;
+import com.ecom.dto.ProductResponse;
+import com.ecom.entity.Product;
+import com.ecom.repository.InventoryShardRepository;
+import com.ecom.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The version a single-product write returns is the one it committed, so a
+ * client can send it straight back as the precondition of a batch update.
+ */
+@SpringBootTest
+class ProductVersionTest {
+
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private InventoryShardRepository inventoryShardRepository;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        product = productRepository.save(Product.builder()
+                .name("Versioned item")
+                .slug("versioned-item-" + UUID.randomUUID())
+                .priceBefore(new BigDecimal("20.00"))
+                .priceAfter(new BigDecimal("10.00"))
+                .inventory(50)
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        inventoryShardRepository.deleteByProductId(product.getId());
+        productRepository.deleteById(product.getId());
+    }
+
+    @Test
+    void inventoryUpdateVersionIsAcceptedByBatch() {
+        ProductResponse updated = productService.updateInventory(product.getId(), 40);
+
+        assertCommitted(updated);
+        assertAcceptedByBatch(updated.getVersion());
+    }
+
+    @Test
+    void priceUpdateVersionIsAcceptedByBatch() {
+        ProductResponse updated = productService.updatePrice(product.getId(),
+                new BigDecimal("25.00"), new BigDecimal("12.50"));
+
+        assertCommitted(updated);
+        assertAcceptedByBatch(updated.getVersion());
+    }
+
+    @Test
+    void stockShardsUpdateVersionIsAcceptedByBatch() {
+        ProductResponse updated = productService.updateStockShards(product.getId(), 4);
+
+        assertCommitted(updated);
+        assertAcceptedByBatch(updated.getVersion());
+    }
+
+    private void assertCommitted(ProductResponse updated) {
+        Long stored = productRepository.findById(product.getId()).orElseThrow().getVersion();
+        assertEquals(stored, updated.getVersion());
+        // The cached entry was written from the same response
+        assertEquals(stored, productService.getProductBySlug(product.getSlug()).getVersion());
+    }
+
+    private void assertAcceptedByBatch(Long version) {
+        InventoryBatchRequest.Update update = new InventoryBatchRequest.Update();
+        update.setProductId(product.getId());
+        update.setDelta(-1);
+        update.setVersion(version);
+
+        InventoryBatchResponse response = productService.updateInventories(List.of(update));
+
+        InventoryBatchResponse.Result result = response.getResults().get(0);
+        assertEquals(InventoryBatchResponse.Status.UPDATED, result.getStatus());
+        assertEquals(version + 1, result.getVersion());
+    }
+}
@@ -0,0 +1,72 @@
+package com.ecom.service.impl;
+
+import com.ecom.dto.CategoryTreeResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CategoryTreeTest {
+
+    // Electronics > (Laptops > Gaming Laptops, Audio), Books
+    private final CategoryTree tree = new CategoryTree(List.of(
+            new CategoryTree.Entry(1L, "Electronics", "electronics", null),
+            new CategoryTree.Entry(2L, "Laptops", "laptops", 1L),
+            new CategoryTree.Entry(3L, "Gaming Laptops", "gaming-laptops", 2L),
+            new CategoryTree.Entry(4L, "audio", "audio", 1L),
+            new CategoryTree.Entry(5L, "Books", "books", null)
+    ));
+
+    @Test
+    void subtreeIdsIncludeDescendantsAtAnyDepth() {
+        assertEquals(Set.of(1L, 2L, 3L, 4L), tree.subtreeIds(List.of(1L)));
+        assertEquals(Set.of(2L, 3L, 5L), tree.subtreeIds(List.of(2L, 5L)));
+        assertEquals(Set.of(3L), tree.subtreeIds(List.of(3L)));
+    }
+
+    @Test
+    void unknownIdsAreKeptAsTheyAre() {
+        assertEquals(Set.of(99L), tree.subtreeIds(List.of(99L)));
+    }
+
+    @Test
+    void responseNestsChildrenSortedByNameIgnoringCase() {
+        List<CategoryTreeResponse> roots = tree.toResponse();
+
+        assertEquals(List.of("Books", "Electronics"), names(roots));
+        CategoryTreeResponse electronics = roots.get(1);
+        assertEquals(List.of("audio", "Laptops"), names(electronics.getChildren()));
+        assertEquals(List.of("Gaming Laptops"), names(electronics.getChildren().get(1).getChildren()));
+    }
+
+    @Test
+    void withAddsANodeWithoutChangingTheOriginal() {
+        CategoryTree grown = tree.with(new CategoryTree.Entry(6L, "Headphones", "headphones", 4L));
+
+        assertEquals(Set.of(4L, 6L), grown.subtreeIds(List.of(4L)));
+        assertEquals(Set.of(4L), tree.subtreeIds(List.of(4L)));
+    }
+
+    @Test
+    void nodeWithMissingParentIsARoot() {
+        CategoryTree orphaned = new CategoryTree(List.of(new CategoryTree.Entry(7L, "Orphan", "orphan", 42L)));
+
+        assertEquals(List.of("Orphan"), names(orphaned.toResponse()));
+    }
+
+    @Test
+    void parentIdIsReadFromTheMaterializedPath() {
+        assertEquals(4L, CategoryTree.parentId("/1/4/9/"));
+        assertEquals(1L, CategoryTree.parentId("/1/4/"));
+        assertNull(CategoryTree.parentId("/1/"));
+        assertNull(CategoryTree.parentId(null));
+    }
+
+    private static List<String> names(List<CategoryTreeResponse> nodes) {
+        return nodes.stream().map(CategoryTreeResponse::getName).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,78 @@
+package com.ecom.service.impl;
+
+import com.ecom.exception.BadRequestException;
+import com.ecom.repository.ProductRepositoryCustom.ProductSummaryView;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductCursorTest {
+
+    private static final ProductSummaryView LAST = new ProductSummaryView(42L, "Desk | Walnut", "desk-walnut",
+            new BigDecimal("250.00"), new BigDecimal("1E+3"), 3, LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_000_000),
+            null);
+
+    @Test
+    void roundTripsEverySortableProperty() {
+        for (String property : ProductCursor.SORTABLE_PROPERTIES) {
+            for (Sort.Direction direction : Sort.Direction.values()) {
+                Sort.Order order = new Sort.Order(direction, property);
+                ProductCursor cursor = ProductCursor.decode(ProductCursor.of(order, LAST).encode());
+
+                assertTrue(cursor.matches(order), property + " " + direction);
+                assertEquals(42L, cursor.getId());
+            }
+        }
+    }
+
+    @Test
+    void keepsTheSortValue() {
+        assertEquals(LAST.createdAt(), decode(Sort.Order.desc("createdAt")).getValue());
+        // Compared by value: the cursor carries the plain-string form
+        assertEquals(0, new BigDecimal("1000").compareTo((BigDecimal) decode(Sort.Order.asc("priceAfter")).getValue()));
+        // The separator may appear in the last field
+        assertEquals("Desk | Walnut", decode(Sort.Order.asc("name")).getValue());
+    }
+
+    @Test
+    void doesNotMatchAnotherSort() {
+        ProductCursor cursor = decode(Sort.Order.asc("priceAfter"));
+
+        assertFalse(cursor.matches(Sort.Order.desc("priceAfter")));
+        assertFalse(cursor.matches(Sort.Order.asc("name")));
+    }
+
+    @Test
+    void rejectsTamperedCursors() {
+        for (String token : new String[]{
+                "not base64!",
+                encode("priceAfter|ASC|42"),
+                encode("inventory|ASC|42|3"),
+                encode("priceAfter|SIDEWAYS|42|10.00"),
+                encode("priceAfter|ASC|forty-two|10.00"),
+                encode("priceAfter|ASC|42|ten"),
+                encode("createdAt|ASC|42|yesterday")
+        }) {
+            assertThrows(BadRequestException.class, () -> ProductCursor.decode(token), token);
+        }
+    }
+
+    @Test
+    void refusesUnsupportedSort() {
+        assertThrows(BadRequestException.class, () -> ProductCursor.of(Sort.Order.asc("inventory"), LAST));
+    }
+
+    private static ProductCursor decode(Sort.Order order) {
+        return ProductCursor.decode(ProductCursor.of(order, LAST).encode());
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
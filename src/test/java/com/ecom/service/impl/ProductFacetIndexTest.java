@@ -0,0 +1,125 @@
+package com.ecom.service.impl;
+
+import com.ecom.dto.FacetCounts;
+import com.ecom.dto.ProductFilter;
+import com.ecom.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+
+class ProductFacetIndexTest {
+
+    // Bands: [0, 25), [25, 50), [50, 100), [100, ∞)
+    private final ProductFacetIndex index = new ProductFacetIndex(mock(ProductRepository.class),
+            new BigDecimal[]{new BigDecimal("100"), new BigDecimal("25"), new BigDecimal("50")});
+
+    @BeforeEach
+    void setUp() {
+        index.put(1L, new BigDecimal("10.00"), 5, true, List.of(1L));
+        index.put(2L, new BigDecimal("30.00"), 0, true, List.of(1L, 2L));
+        index.put(3L, new BigDecimal("75.00"), 2, true, List.of(2L));
+        index.put(4L, new BigDecimal("200.00"), 1, true, List.of());
+        index.put(5L, new BigDecimal("10.00"), 9, false, List.of(1L));
+    }
+
+    @Test
+    void unfilteredCountsCoverActiveProductsOnly() {
+        FacetCounts counts = index.count(new ProductFilter());
+
+        assertEquals(Map.of(1L, 2L, 2L, 2L), counts.getCategories());
+        assertEquals(List.of(1L, 1L, 1L, 1L), bandCounts(counts));
+        assertEquals(3, counts.getInStock());
+        assertEquals(4, counts.getTotal());
+    }
+
+    @Test
+    void bandsAreSortedAndTheTopBandIsOpenEnded() {
+        List<FacetCounts.PriceBand> bands = index.count(new ProductFilter()).getPriceBands();
+
+        assertEquals(0, BigDecimal.ZERO.compareTo(bands.get(0).getMin()));
+        assertEquals(new BigDecimal("25"), bands.get(0).getMax());
+        assertEquals(new BigDecimal("100"), bands.get(3).getMin());
+        assertNull(bands.get(3).getMax());
+    }
+
+    @Test
+    void categoryCountsIgnoreTheCategoryFilter() {
+        FacetCounts counts = index.count(ProductFilter.builder().categoryIds(Set.of(1L)).build());
+
+        assertEquals(Map.of(1L, 2L, 2L, 2L), counts.getCategories());
+        assertEquals(List.of(1L, 1L, 0L, 0L), bandCounts(counts));
+        assertEquals(1, counts.getInStock());
+        assertEquals(2, counts.getTotal());
+    }
+
+    @Test
+    void stockCountIgnoresTheStockFilter() {
+        FacetCounts counts = index.count(ProductFilter.builder().inStockOnly(true).build());
+
+        assertEquals(Map.of(1L, 1L, 2L, 1L), counts.getCategories());
+        assertEquals(List.of(1L, 0L, 1L, 1L), bandCounts(counts));
+        assertEquals(3, counts.getInStock());
+        assertEquals(3, counts.getTotal());
+    }
+
+    @Test
+    void priceFilterRoundsOutToWholeBands() {
+        FacetCounts counts = index.count(ProductFilter.builder()
+                .minPrice(new BigDecimal("30"))
+                .maxPrice(new BigDecimal("60"))
+                .build());
+
+        // 30..60 touches [25, 50) and [50, 100), so the 75.00 product counts too
+        assertEquals(Map.of(1L, 1L, 2L, 2L), counts.getCategories());
+        assertEquals(List.of(1L, 1L, 1L, 1L), bandCounts(counts));
+        assertEquals(1, counts.getInStock());
+        assertEquals(2, counts.getTotal());
+    }
+
+    @Test
+    void unknownCategoryMatchesNothing() {
+        FacetCounts counts = index.count(ProductFilter.builder().categoryIds(Set.of(99L)).build());
+
+        assertEquals(0, counts.getTotal());
+        assertEquals(List.of(0L, 0L, 0L, 0L), bandCounts(counts));
+    }
+
+    @Test
+    void updatesMoveProductsBetweenBitmaps() {
+        index.updateStock(1L, 0);
+        index.setInStock(2L, true);
+        // Inactive products never count as in stock
+        index.setInStock(5L, true);
+        index.put(3L, new BigDecimal("150.00"), 2, true, List.of(1L));
+        index.remove(4L);
+
+        FacetCounts counts = index.count(new ProductFilter());
+        assertEquals(Map.of(1L, 3L, 2L, 1L), counts.getCategories());
+        assertEquals(List.of(1L, 1L, 0L, 1L), bandCounts(counts));
+        assertEquals(2, counts.getInStock());
+        assertEquals(3, counts.getTotal());
+    }
+
+    @Test
+    void deactivatingRemovesTheProductEverywhere() {
+        index.put(2L, new BigDecimal("30.00"), 0, false, List.of(1L, 2L));
+
+        FacetCounts counts = index.count(new ProductFilter());
+        assertEquals(Map.of(1L, 1L, 2L, 1L), counts.getCategories());
+        assertEquals(List.of(1L, 0L, 1L, 1L), bandCounts(counts));
+        assertEquals(3, counts.getTotal());
+    }
+
+    private static List<Long> bandCounts(FacetCounts counts) {
+        return counts.getPriceBands().stream().map(FacetCounts.PriceBand::getCount).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,97 @@
+package com.ecom.service.impl;
+
+import com.ecom.exception.ApiException;
+import com.ecom.repository.SlugReservationRepository;
+import com.ecom.security.SlugUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Slug allocation against an in-memory stand-in for slug_reservations that
+ * answers the two queries the way PostgreSQL does.
+ */
+class SlugAllocatorTest {
+
+    private final Set<String> reserved = new HashSet<>();
+    // Slugs a concurrent create claims between the read and the insert, once each
+    private final Deque<String> claimedConcurrently = new ArrayDeque<>();
+    private SlugAllocator allocator;
+
+    @BeforeEach
+    void setUp() {
+        SlugReservationRepository repository = mock(SlugReservationRepository.class);
+        when(repository.findTakenWithBases(anyString(), anyString())).thenAnswer(call -> {
+            List<String> bases = split(call.getArgument(1));
+            return reserved.stream()
+                    .filter(slug -> bases.stream().anyMatch(base -> slug.equals(base) || slug.startsWith(base + "-")))
+                    .collect(Collectors.toList());
+        });
+        when(repository.reserveAll(anyString(), anyString())).thenAnswer(call -> {
+            reserved.addAll(claimedConcurrently);
+            claimedConcurrently.clear();
+            List<String> claimed = new ArrayList<>();
+            for (String slug : split(call.getArgument(1))) {
+                if (reserved.add(slug)) {
+                    claimed.add(slug);
+                }
+            }
+            return claimed;
+        });
+        allocator = new SlugAllocator(repository, new SlugUtils());
+    }
+
+    @Test
+    void firstNameGetsTheBareSlug() {
+        assertEquals("t-shirt", allocator.allocate(SlugAllocator.PRODUCTS, "T Shirt"));
+    }
+
+    @Test
+    void takenSlugGetsTheNextSuffix() {
+        reserved.addAll(List.of("t-shirt", "t-shirt-1", "t-shirt-7"));
+
+        assertEquals("t-shirt-8", allocator.allocate(SlugAllocator.PRODUCTS, "T Shirt"));
+    }
+
+    @Test
+    void sameNameTwiceInOneBatchGetsTwoSlugs() {
+        assertEquals(List.of("mug", "mug-1", "cup"),
+                allocator.allocateAll(SlugAllocator.PRODUCTS, List.of("Mug", "Mug", "Cup")));
+    }
+
+    @Test
+    void nameWithoutLatinCharactersFallsBackToTheScope() {
+        assertEquals("product", allocator.allocate(SlugAllocator.PRODUCTS, "चाय का कप"));
+        assertEquals("product-1", allocator.allocate(SlugAllocator.PRODUCTS, "कॉफ़ी"));
+        assertEquals("category", allocator.allocate(SlugAllocator.CATEGORIES, "!!!"));
+    }
+
+    @Test
+    void slugClaimedConcurrentlyIsRetried() {
+        claimedConcurrently.add("lamp");
+
+        assertEquals("lamp-1", allocator.allocate(SlugAllocator.PRODUCTS, "Lamp"));
+    }
+
+    @Test
+    void givesUpWhenEveryAttemptConflicts() {
+        SlugReservationRepository repository = mock(SlugReservationRepository.class);
+        when(repository.findTakenWithBases(anyString(), anyString())).thenReturn(List.of());
+        when(repository.reserveAll(anyString(), anyString())).thenReturn(List.of());
+        SlugAllocator contended = new SlugAllocator(repository, new SlugUtils());
+
+        assertThrows(ApiException.class, () -> contended.allocate(SlugAllocator.PRODUCTS, "Lamp"));
+    }
+
+    private static List<String> split(String joined) {
+        return Arrays.asList(joined.split(","));
+    }
+}
@@ -0,0 +1,126 @@
+package com.ecom.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class SuggestionIndexTest {
+
+    private SuggestionIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new SuggestionIndex();
+        index.put(1L, "Red Shirt", "red-shirt");
+        index.put(2L, "Red Shoes", "red-shoes");
+        index.put(3L, "Blue Shirt", "blue-shirt");
+    }
+
+    @Test
+    void tokenizeFoldsCaseAndAccentsAndDropsPunctuation() {
+        assertArrayEquals(new String[]{"creme", "brulee", "set"}, SuggestionIndex.tokenize("Crème-Brûlée SET, set!"));
+        assertArrayEquals(new String[0], SuggestionIndex.tokenize(null));
+    }
+
+    @Test
+    void everyQueryWordMustPrefixAWord() {
+        assertEquals(List.of(1L, 2L), ids("red sh"));
+        assertEquals(List.of(1L, 3L), ids("shirt"));
+        assertEquals(List.of(1L), ids("shi re"));
+        assertEquals(List.of(), ids("green"));
+        assertEquals(List.of(), ids("  "));
+    }
+
+    @Test
+    void shorterNamesWinTiesThenAlphabetical() {
+        index.put(4L, "Red", "red");
+
+        assertEquals(List.of(4L, 1L, 2L), ids("red"));
+    }
+
+    @Test
+    void scoresOrderResultsAndReachTheNodesOnRerank() {
+        index.addScore(2L, 5);
+        // Lookups sort candidates by the live score even before a rerank
+        assertEquals(List.of(2L, 1L), ids("red"));
+
+        index.rerank();
+        index.addScoreBySlug("red-shirt", 10);
+        index.rerank();
+        assertEquals(List.of(1L, 2L), ids("red"));
+    }
+
+    @Test
+    void limitTruncates() {
+        assertEquals(List.of(1L), index.search("red", 1).stream().map(entry -> entry.id).collect(Collectors.toList()));
+    }
+
+    @Test
+    void renameKeepsScoreAndRemoveDropsEntry() {
+        index.addScore(3L, 7);
+        index.put(3L, "Navy Shirt", "navy-shirt");
+        index.rerank();
+
+        assertEquals(List.of(), ids("blue"));
+        assertEquals(List.of(3L, 1L), ids("shirt"));
+
+        index.remove(3L);
+        assertEquals(List.of(1L), ids("shirt"));
+    }
+
+    @Test
+    void nodesAreCappedAndRefilledWhenAnEntryLeaves() {
+        SuggestionIndex large = new SuggestionIndex();
+        int total = SuggestionIndex.TOP_K + 10;
+        for (long id = 1; id <= total; id++) {
+            large.put(id, "Lamp " + id, "lamp-" + id);
+            large.addScore(id, id);
+        }
+        large.rerank();
+
+        List<Long> top = large.search("lamp", SuggestionIndex.TOP_K + 50).stream()
+                .map(entry -> entry.id)
+                .collect(Collectors.toList());
+        assertEquals(SuggestionIndex.TOP_K, top.size());
+        assertEquals((long) total, top.get(0));
+
+        // The best entry leaves; the next one outside the node moves in
+        large.remove((long) total);
+        List<Long> refilled = large.search("lamp", SuggestionIndex.TOP_K + 50).stream()
+                .map(entry -> entry.id)
+                .collect(Collectors.toList());
+        assertEquals(SuggestionIndex.TOP_K, refilled.size());
+        assertEquals((long) total - SuggestionIndex.TOP_K, refilled.get(refilled.size() - 1));
+    }
+
+    @Test
+    void droppedScoreLetsAnOutsideEntryBackIn() {
+        SuggestionIndex large = new SuggestionIndex();
+        int total = SuggestionIndex.TOP_K + 1;
+        for (long id = 1; id <= total; id++) {
+            large.put(id, "Lamp " + id, "lamp-" + id);
+            large.addScore(id, 100);
+        }
+        large.addScore(1L, -200);
+        large.rerank();
+        assertFalse(ids(large, "lamp").contains(1L));
+
+        large.addScore(1L, 1000);
+        large.rerank();
+        assertEquals(1L, ids(large, "lamp").get(0));
+    }
+
+    private List<Long> ids(String query) {
+        return ids(index, query);
+    }
+
+    private static List<Long> ids(SuggestionIndex index, String query) {
+        return index.search(query, 100).stream().map(entry -> entry.id).collect(Collectors.toList());
+    }
+}